@@ -0,0 +1,43 @@
+package edu.belmont.demo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one password check at several BCrypt cost factors (10 is the default used by the app).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BcryptBenchmark {
+
+    @Param({"8", "10", "12"})
+    public int cost;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        hash = BCrypt.hashpw("password", BCrypt.gensalt(cost));
+    }
+
+    @Benchmark
+    public boolean checkpw() {
+        return BCrypt.checkpw("password", hash);
+    }
+}
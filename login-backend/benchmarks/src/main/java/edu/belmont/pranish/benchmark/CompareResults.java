@@ -0,0 +1,64 @@
+package edu.belmont.demo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files and exits with status 1 if any benchmark
+ * present in both got slower by more than the allowed percentage.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar edu.belmont.demo.benchmark.CompareResults baseline.json current.json [maxRegressionPercent]}
+ * <p>
+ * All benchmarks here report average time, so a higher score is a regression.
+ */
+public final class CompareResults {
+
+    private CompareResults() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [maxRegressionPercent]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Double> baseline = read(new File(args[0]));
+        Map<String, Double> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            if (before == null || before == 0) {
+                System.out.printf("%-70s %12.3f (new)%n", entry.getKey(), entry.getValue());
+                continue;
+            }
+            double change = (entry.getValue() - before) / before * 100;
+            boolean regressed = change > maxRegression;
+            regressions += regressed ? 1 : 0;
+            System.out.printf("%-70s %12.3f -> %12.3f %+7.1f%%%s%n",
+                    entry.getKey(), before, entry.getValue(), change, regressed ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, maxRegression);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Double> read(File file) throws IOException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                params.fields().forEachRemaining(param -> key.append(' ').append(param.getKey())
+                        .append('=').append(param.getValue().asText()));
+            }
+            scores.put(key.toString(), result.get("primaryMetric").get("score").asDouble());
+        }
+        return scores;
+    }
+}
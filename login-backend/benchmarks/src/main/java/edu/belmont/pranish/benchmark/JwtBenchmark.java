@@ -0,0 +1,67 @@
+package edu.belmont.demo.benchmark;
+
+import edu.belmont.demo.service.JwtService;
+import edu.belmont.demo.service.TokenVersionRegistry;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and validation.
+ * {@code tokenCacheSize=0} measures a full signature check on every call;
+ * {@link #validateWithNewParser()} is the old behaviour of building a parser per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    @Param({"0", "10000"})
+    public int tokenCacheSize;
+
+    private JwtService jwtService;
+    private SecretKey secretKey;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET, 3600, tokenCacheSize, new TokenVersionRegistry(3600));
+        secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = jwtService.issueToken("benchmark-user", "USER", true, 0);
+    }
+
+    @Benchmark
+    public String issueToken() {
+        return jwtService.issueToken("benchmark-user", "USER", true, 0);
+    }
+
+    @Benchmark
+    public String validateAndGetSubject() {
+        return jwtService.validateAndGetSubject(token);
+    }
+
+    @Benchmark
+    public String validateWithNewParser() {
+        return Jwts.parserBuilder().setSigningKey(secretKey).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+}
@@ -0,0 +1,131 @@
+package edu.belmont.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.belmont.demo.controller.AdminController;
+import edu.belmont.demo.controller.AuthController;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.repository.ReplicationFence;
+import edu.belmont.demo.repository.UserInvalidationBus;
+import edu.belmont.demo.service.AuthService;
+import edu.belmont.demo.service.JwtService;
+import edu.belmont.demo.service.LoginMetrics;
+import edu.belmont.demo.service.TokenClaims;
+import edu.belmont.demo.service.UserCollectionVersion;
+import edu.belmont.demo.service.TokenVersionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Response building and serialization (JSON or CBOR) of the user list endpoints,
+ * with the database replaced by an in-memory list so only controller work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserListBenchmark {
+
+    private static final String SECRET = "benchmark-secret-0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int ADMIN_PAGE_SIZE = 100;
+
+    @Param({"100", "10000"})
+    public int userCount;
+
+    @Param({"json", "cbor"})
+    public String encoding;
+
+    private AuthController authController;
+    private AdminController adminController;
+    private ObjectMapper objectMapper;
+    private TokenClaims claims;
+
+    /**
+     * Serves users from memory; only the methods the list endpoints call are overridden.
+     */
+    static class InMemoryAuthService extends AuthService {
+
+        private final List<UserDocument> users;
+
+        InMemoryAuthService(List<UserDocument> users) {
+            super(null, null, null, null, null, null, null, 5000);
+            this.users = users;
+        }
+
+        @Override
+        public Stream<UserSummary> streamUserSummaries(int batchSize) {
+            return users.stream().map(user -> new UserSummary(user.getUsername(), user.getRole()));
+        }
+
+        @Override
+        public Page<UserDocument> getAllUsers(String query, boolean prefixOnly, Pageable pageable) {
+            int from = (int) Math.min(pageable.getOffset(), users.size());
+            int to = Math.min(from + pageable.getPageSize(), users.size());
+            return new PageImpl<>(users.subList(from, to), pageable, users.size());
+        }
+    }
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        List<UserDocument> users = new ArrayList<>(userCount);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < userCount; i++) {
+            UserDocument user = new UserDocument("user" + i, "$2a$10$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234", i % 10 == 0 ? "ADMIN" : "USER");
+            user.setId(String.format("%024x", i));
+            user.setLastLoginAt(now.minusMinutes(i));
+            users.add(user);
+        }
+        AuthService authService = new InMemoryAuthService(users);
+        JwtService jwtService = new JwtService(SECRET, 3600, 10000, new TokenVersionRegistry(3600));
+
+        authController = new AuthController(authService, jwtService, new LoginMetrics(new SimpleMeterRegistry()), null,
+                Optional.empty(), 500);
+        adminController = new AdminController();
+        inject("authService", authService);
+        inject("collectionVersion", new UserCollectionVersion(new UserInvalidationBus(null, false, 0, 0), new ReplicationFence(), 60));
+
+        objectMapper = ("cbor".equals(encoding) ? Jackson2ObjectMapperBuilder.cbor() : Jackson2ObjectMapperBuilder.json()).build();
+        claims = jwtService.validate(jwtService.issueToken("benchmark-user", "USER", true, 0));
+    }
+
+    private void inject(String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = AdminController.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(adminController, value);
+    }
+
+    @Benchmark
+    public byte[] authUsers() throws Exception {
+        return objectMapper.writeValueAsBytes(authController.getAllUsers(claims).getBody());
+    }
+
+    @Benchmark
+    public byte[] adminUsersPage() throws Exception {
+        return objectMapper.writeValueAsBytes(
+                adminController.getAllUsers(0, ADMIN_PAGE_SIZE, null, "contains", null, false, null).getBody());
+    }
+}
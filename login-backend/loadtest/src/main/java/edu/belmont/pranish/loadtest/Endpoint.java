@@ -0,0 +1,103 @@
+package edu.belmont.demo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Requests the load generator can send. Each request picks a random seeded
+ * user (or token issued to one) so lookups are spread across the collection.
+ */
+enum Endpoint {
+
+    LOGIN("login") {
+        @Override
+        HttpRequest request(String baseUrl, LoadContext context) {
+            return loginRequest(baseUrl, LoadTest.username(context.randomUser()));
+        }
+    },
+    PROFILE("profile") {
+        @Override
+        HttpRequest request(String baseUrl, LoadContext context) {
+            return builder(baseUrl + "/api/profile").header("Authorization", "Bearer " + context.randomToken()).build();
+        }
+    },
+    USERS("users") {
+        @Override
+        HttpRequest request(String baseUrl, LoadContext context) {
+            return builder(baseUrl + "/api/users").header("Authorization", "Bearer " + context.randomToken()).build();
+        }
+    },
+    ADMIN_USERS("adminUsers") {
+        @Override
+        HttpRequest request(String baseUrl, LoadContext context) {
+            int pages = Math.max(1, context.users() / 20);
+            return builder(baseUrl + "/api/admin/users?size=20&page=" + ThreadLocalRandom.current().nextInt(pages))
+                    .header("Authorization", "Bearer " + context.adminToken())
+                    .build();
+        }
+    },
+    ADMIN_SEARCH("adminSearch") {
+        @Override
+        HttpRequest request(String baseUrl, LoadContext context) {
+            String query = LoadTest.username(context.randomUser());
+            query = query.substring(0, Math.min(query.length(), 10));
+            return builder(baseUrl + "/api/admin/users?size=20&match=prefix&query=" + query)
+                    .header("Authorization", "Bearer " + context.adminToken())
+                    .build();
+        }
+    },
+    ADMIN_STATS("adminStats") {
+        @Override
+        HttpRequest request(String baseUrl, LoadContext context) {
+            return builder(baseUrl + "/api/admin/stats").header("Authorization", "Bearer " + context.adminToken()).build();
+        }
+    };
+
+    /**
+     * Shared state the requests draw from.
+     */
+    interface LoadContext {
+        int users();
+
+        int randomUser();
+
+        String randomToken();
+
+        String adminToken();
+    }
+
+    private final String displayName;
+
+    Endpoint(String displayName) {
+        this.displayName = displayName;
+    }
+
+    abstract HttpRequest request(String baseUrl, LoadContext context);
+
+    String displayName() {
+        return displayName;
+    }
+
+    static Endpoint fromName(String name) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.displayName.equalsIgnoreCase(name)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint in mix: " + name);
+    }
+
+    static HttpRequest loginRequest(String baseUrl, String username) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + LoadTest.PASSWORD + "\"}";
+        return builder(baseUrl + "/api/login")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest.Builder builder(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30));
+    }
+}
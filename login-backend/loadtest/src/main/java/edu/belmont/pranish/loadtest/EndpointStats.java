@@ -0,0 +1,60 @@
+package edu.belmont.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram (microseconds) and outcome counters for one endpoint.
+ * 503 responses are counted as rejected rather than failed, since they are the
+ * backend shedding load on purpose.
+ */
+class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    void record(long latencyNanos, int status) {
+        latencies.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (status >= 200 && status < 300) {
+            ok.increment();
+        } else if (status == 503) {
+            rejected.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    void reset() {
+        latencies.reset();
+        ok.reset();
+        rejected.reset();
+        failed.reset();
+    }
+
+    Map<String, Object> summary(double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latencies.getTotalCount());
+        summary.put("ok", ok.sum());
+        summary.put("rejected", rejected.sum());
+        summary.put("failed", failed.sum());
+        summary.put("throughputPerSecond", latencies.getTotalCount() / seconds);
+        summary.put("p50Millis", percentileMillis(50));
+        summary.put("p99Millis", percentileMillis(99));
+        summary.put("p999Millis", percentileMillis(99.9));
+        summary.put("maxMillis", latencies.getMaxValue() / 1000.0);
+        return summary;
+    }
+
+    private double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
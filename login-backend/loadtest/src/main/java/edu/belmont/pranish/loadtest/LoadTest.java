@@ -0,0 +1,255 @@
+package edu.belmont.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.belmont.demo.SimpleLoginBackendApplication;
+import edu.belmont.demo.model.UserDocument;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load generator for the backend.
+ * <p>
+ * By default it starts an in-memory MongoDB stand-in, seeds {@code --users}
+ * users, boots the backend in-process on a random port and drives it with
+ * {@code --concurrency} clients using the weighted {@code --mix} of endpoints.
+ * After {@code --warmupSeconds} the counters are reset, and after
+ * {@code --durationSeconds} p50/p99/p999 latency and throughput are reported
+ * per endpoint (and written as JSON with {@code --out}).
+ * <p>
+ * Pass {@code --target=http://host:8080} to load an already running backend
+ * instead, and {@code --mongo=mongodb://...} to seed a real database.
+ * The in-memory stand-in is not a query planner, so absolute numbers with it
+ * compare releases against each other rather than predict production.
+ */
+public final class LoadTest {
+
+    static final String PASSWORD = "password";
+    private static final String DATABASE = "simple_login";
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final int TOKEN_POOL_SIZE = 100;
+
+    private final LoadTestOptions options;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final Endpoint[] weightedEndpoints;
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+        List<Endpoint> weighted = new ArrayList<>();
+        options.mix().forEach((endpoint, weight) -> {
+            stats.put(endpoint, new EndpointStats());
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        this.weightedEndpoints = weighted.toArray(Endpoint[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadTestOptions.parse(args)).run();
+    }
+
+    static String username(int index) {
+        return "loaduser" + index;
+    }
+
+    private void run() throws Exception {
+        MongoServer mongoServer = null;
+        ConfigurableApplicationContext application = null;
+        try {
+            String mongoUri = options.mongoUri();
+            if (mongoUri == null) {
+                mongoServer = new MongoServer(new MemoryBackend());
+                InetSocketAddress address = mongoServer.bind();
+                mongoUri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/" + DATABASE;
+            }
+            if (options.seed()) {
+                seed(mongoUri);
+            }
+
+            String baseUrl = options.target();
+            if (baseUrl == null) {
+                application = startBackend(mongoUri, mongoServer != null, options.virtualThreads(), options.webStack());
+                baseUrl = "http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort();
+            }
+            System.out.println("Running against " + baseUrl);
+
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < Math.min(TOKEN_POOL_SIZE, options.users()); i++) {
+                tokens.add(login(baseUrl, username(i)));
+            }
+            String adminToken = tokens.get(0);
+            Endpoint.LoadContext context = new Endpoint.LoadContext() {
+                @Override
+                public int users() {
+                    return options.users();
+                }
+
+                @Override
+                public int randomUser() {
+                    return ThreadLocalRandom.current().nextInt(options.users());
+                }
+
+                @Override
+                public String randomToken() {
+                    return tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+                }
+
+                @Override
+                public String adminToken() {
+                    return adminToken;
+                }
+            };
+
+            report(drive(baseUrl, context));
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (mongoServer != null) {
+                mongoServer.shutdownNow();
+            }
+        }
+    }
+
+    private void seed(String mongoUri) {
+        long startedAt = System.nanoTime();
+        // One hash shared by every user: hashing a million passwords would take longer than the run
+        String passwordHash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+        LocalDateTime now = LocalDateTime.now();
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            MongoTemplate template = new MongoTemplate(client, DATABASE);
+            List<UserDocument> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = 0; i < options.users(); i++) {
+                UserDocument user = new UserDocument(username(i), passwordHash, i == 0 ? "ADMIN" : "USER");
+                user.setLastLoginAt(now.minusMinutes(i % 10_000));
+                batch.add(user);
+                if (batch.size() == SEED_BATCH_SIZE) {
+                    template.insert(batch, UserDocument.class);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                template.insert(batch, UserDocument.class);
+            }
+        }
+        System.out.printf("Seeded %d users in %d ms%n", options.users(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private static ConfigurableApplicationContext startBackend(String mongoUri, boolean inMemoryMongo,
+                                                              boolean virtualThreads, String webStack) {
+        // Passed as arguments so they override application.properties
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.data.mongodb.uri=" + mongoUri,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.main.web-application-type=" + webStack,
+                "--logging.level.root=WARN",
+                // Every simulated client shares one IP and logs in far more often than a person would
+                "--auth.rateLimit.enabled=false"));
+        if (inMemoryMongo) {
+            // The stand-in has no capped collections, which the cross-instance cache bus needs
+            arguments.add("--auth.userCache.broadcast.enabled=false");
+        }
+        return new SpringApplicationBuilder(SimpleLoginBackendApplication.class)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    private String login(String baseUrl, String username) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(Endpoint.loginRequest(baseUrl, username),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login as " + username + " failed with " + response.statusCode()
+                    + ": " + response.body());
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.get("token").asText();
+    }
+
+    private double drive(String baseUrl, Endpoint.LoadContext context) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + options.warmup().toNanos();
+        long end = warmupEnd + options.duration().toNanos();
+
+        List<Thread> clients = new ArrayList<>(options.concurrency());
+        for (int i = 0; i < options.concurrency(); i++) {
+            clients.add(Thread.ofPlatform().name("load-client-" + i).start(() -> {
+                while (System.nanoTime() < end) {
+                    Endpoint endpoint = weightedEndpoints[ThreadLocalRandom.current().nextInt(weightedEndpoints.length)];
+                    long startedAt = System.nanoTime();
+                    int status;
+                    try {
+                        status = httpClient.send(endpoint.request(baseUrl, context),
+                                HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    stats.get(endpoint).record(System.nanoTime() - startedAt, status);
+                }
+            }));
+        }
+
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+        stats.values().forEach(EndpointStats::reset);
+        long measuredFrom = System.nanoTime();
+        for (Thread client : clients) {
+            client.join();
+        }
+        return (System.nanoTime() - measuredFrom) / 1e9;
+    }
+
+    private void report(double seconds) throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-12s %9s %9s %9s %9s %10s %9s %9s %9s%n",
+                "endpoint", "requests", "rejected", "failed", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            Map<String, Object> summary = entry.getValue().summary(seconds);
+            endpoints.put(entry.getKey().displayName(), summary);
+            System.out.printf("%-12s %9d %9d %9d %9.1f %10.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey().displayName(), summary.get("requests"), summary.get("rejected"),
+                    summary.get("failed"), summary.get("throughputPerSecond"), summary.get("p50Millis"),
+                    summary.get("p99Millis"), summary.get("p999Millis"), summary.get("maxMillis"));
+        }
+
+        if (options.out() != null) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("users", options.users());
+            result.put("concurrency", options.concurrency());
+            result.put("virtualThreads", options.virtualThreads());
+            result.put("webStack", options.webStack());
+            result.put("durationSeconds", seconds);
+            result.put("mix", options.mix().entrySet().stream()
+                    .collect(LinkedHashMap::new, (map, e) -> map.put(e.getKey().displayName(), e.getValue()), Map::putAll));
+            result.put("endpoints", endpoints);
+            objectMapper.writeValue(new File(options.out()), result);
+            System.out.println("Report written to " + options.out());
+        }
+    }
+}
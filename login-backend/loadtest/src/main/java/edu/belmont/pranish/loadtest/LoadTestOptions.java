@@ -0,0 +1,65 @@
+package edu.belmont.demo.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command-line options, given as {@code --name=value}.
+ *
+ * @param users Number of users to seed (loaduser0 .. loaduserN-1)
+ * @param concurrency Number of concurrent clients, each sending one request at a time
+ * @param warmup Load applied before measurement starts
+ * @param duration Measured load duration
+ * @param mix Relative weight of each endpoint
+ * @param target Base URL of a running backend; null starts one in-process
+ * @param mongoUri MongoDB to seed and run against; null uses an in-memory stand-in
+ * @param seed Whether to insert the users before the run
+ * @param out File to write the JSON report to, or null
+ * @param virtualThreads Run the in-process backend's request handling on virtual threads
+ * @param webStack Web stack of the in-process backend, "servlet" or "reactive"
+ */
+record LoadTestOptions(int users, int concurrency, Duration warmup, Duration duration,
+                       Map<Endpoint, Integer> mix, String target, String mongoUri, boolean seed, String out,
+                       boolean virtualThreads, String webStack) {
+
+    static final String DEFAULT_MIX = "login:20,profile:45,users:1,adminUsers:15,adminSearch:10,adminStats:9";
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int split = arg.indexOf('=');
+            values.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("users", "10000")),
+                Integer.parseInt(values.getOrDefault("concurrency", "32")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmupSeconds", "10"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("durationSeconds", "60"))),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                values.get("target"),
+                values.get("mongo"),
+                Boolean.parseBoolean(values.getOrDefault("seed", "true")),
+                values.get("out"),
+                Boolean.parseBoolean(values.getOrDefault("virtualThreads", "false")),
+                values.getOrDefault("webStack", "servlet"));
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split(":");
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.fromName(entry[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Request mix has no endpoints");
+        }
+        return weights;
+    }
+}
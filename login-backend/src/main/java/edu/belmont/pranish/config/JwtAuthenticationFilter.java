@@ -0,0 +1,50 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.service.JwtService;
+import edu.belmont.demo.service.TokenClaims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Verifies the bearer token once per request and, if it is valid, makes its
+ * claims the request's principal. Requests without a valid token pass through
+ * unauthenticated; the authorization rules in {@link SecurityConfig} then turn
+ * them away from protected paths before any controller runs.
+ */
+class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtService jwtService;
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+
+    JwtAuthenticationFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String token = TokenAuthentication.bearerToken(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (token != null) {
+            TokenClaims claims = jwtService.validate(token);
+            if (claims != null) {
+                SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+                context.setAuthentication(TokenAuthentication.of(claims));
+                securityContextHolderStrategy.setContext(context);
+            } else {
+                request.setAttribute(TokenAuthentication.INVALID_TOKEN_ATTRIBUTE, Boolean.TRUE);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
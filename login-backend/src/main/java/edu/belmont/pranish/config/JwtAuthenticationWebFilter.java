@@ -0,0 +1,39 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.service.JwtService;
+import edu.belmont.demo.service.TokenClaims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link JwtAuthenticationFilter}. Verification is CPU
+ * work with a verified-token cache in front of it, so it runs inline on the
+ * event loop.
+ */
+class JwtAuthenticationWebFilter implements WebFilter {
+
+    private final JwtService jwtService;
+
+    JwtAuthenticationWebFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String token = TokenAuthentication.bearerToken(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (token == null) {
+            return chain.filter(exchange);
+        }
+        TokenClaims claims = jwtService.validate(token);
+        if (claims == null) {
+            exchange.getAttributes().put(TokenAuthentication.INVALID_TOKEN_ATTRIBUTE, Boolean.TRUE);
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(TokenAuthentication.of(claims)));
+    }
+}
@@ -1,18 +1,86 @@
 package edu.belmont.demo.config;
 
 import edu.belmont.demo.service.JwtService;
+import edu.belmont.demo.service.SigningKeySet;
+import edu.belmont.demo.service.TokenRevocationReconciler;
+import edu.belmont.demo.service.TokenVersionRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.util.Optional;
+
 @Configuration
 public class JwtConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtConfig.class);
+
+    @Bean
+    public TokenVersionRegistry tokenVersionRegistry(@Value("${auth.jwt.ttlSeconds:900}") long ttlSeconds) {
+        return new TokenVersionRegistry(ttlSeconds);
+    }
+
+    /**
+     * ES256 keys from a PKCS#12 keystore whose aliases are key ids. Without a
+     * keystore a key pair is generated per process, which only suits a single
+     * instance that may invalidate its tokens on restart.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "auth.jwt.algorithm", havingValue = "ES256")
+    public SigningKeySet signingKeySet(
+            @Value("${auth.jwt.keyStore:}") String keyStore,
+            @Value("${auth.jwt.keyStorePassword:}") String keyStorePassword,
+            @Value("${auth.jwt.activeKid:}") String activeKid
+    ) {
+        if (keyStore.isBlank()) {
+            SigningKeySet keys = SigningKeySet.generate();
+            log.warn("auth.jwt.keyStore is not set; signing with generated key {}, tokens will not survive a restart",
+                    keys.getActiveKid());
+            return keys;
+        }
+        SigningKeySet keys = SigningKeySet.load(Path.of(keyStore), keyStorePassword.toCharArray(), activeKid);
+        log.info("Signing tokens ES256 with key {} from {}", keys.getActiveKid(), keyStore);
+        return keys;
+    }
+
     @Bean
     public JwtService jwtService(
             @Value("${auth.jwt.secret:change-me-change-me-change-me-change-me}") String secret,
-            @Value("${auth.jwt.ttlSeconds:3600}") long ttlSeconds
+            @Value("${auth.jwt.ttlSeconds:900}") long ttlSeconds,
+            @Value("${auth.jwt.tokenCacheSize:10000}") int tokenCacheSize,
+            TokenVersionRegistry tokenVersionRegistry,
+            Optional<SigningKeySet> signingKeySet
     ) {
-        return new JwtService(secret, ttlSeconds);
+        return signingKeySet
+                .map(keys -> new JwtService(keys, ttlSeconds, tokenCacheSize, tokenVersionRegistry))
+                .orElseGet(() -> new JwtService(secret, ttlSeconds, tokenCacheSize, tokenVersionRegistry));
+    }
+
+    @Bean
+    public MeterBinder jwtTokenCacheMetrics(JwtService jwtService, TokenRevocationReconciler revocationReconciler) {
+        return registry -> {
+            FunctionCounter.builder("auth.jwt.revocations.recovered", revocationReconciler,
+                            TokenRevocationReconciler::getRecoveredCount)
+                    .description("Token revocations loaded from MongoDB rather than received as a broadcast")
+                    .register(registry);
+            FunctionCounter.builder("auth.jwt.token_cache", jwtService, JwtService::getTokenCacheHits)
+                    .tag("result", "hit")
+                    .description("Token validations answered from the verified-token cache")
+                    .register(registry);
+            FunctionCounter.builder("auth.jwt.token_cache", jwtService, JwtService::getTokenCacheMisses)
+                    .tag("result", "miss")
+                    .description("Token validations that required full signature verification")
+                    .register(registry);
+            Gauge.builder("auth.jwt.token_cache.size", jwtService, JwtService::getTokenCacheSize)
+                    .description("Verified tokens currently cached")
+                    .register(registry);
+        };
     }
 }
@@ -0,0 +1,15 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.service.LoginMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LoginMetricsConfig {
+
+    @Bean
+    public LoginMetrics loginMetrics(MeterRegistry registry) {
+        return new LoginMetrics(registry);
+    }
+}
@@ -0,0 +1,48 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.service.LoginRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "auth.rateLimit.enabled", havingValue = "true", matchIfMissing = true)
+public class LoginRateLimiterConfig {
+
+    @Bean
+    public LoginRateLimiter loginRateLimiter(
+            @Value("${auth.rateLimit.ip.enabled:false}") boolean ipEnabled,
+            @Value("${auth.rateLimit.ip.capacity:30}") int ipCapacity,
+            @Value("${auth.rateLimit.ip.refillPerMinute:60}") int ipRefillPerMinute,
+            @Value("${auth.rateLimit.username.capacity:5}") int usernameCapacity,
+            @Value("${auth.rateLimit.username.refillPerMinute:10}") int usernameRefillPerMinute,
+            @Value("${auth.rateLimit.maxKeys:100000}") int maxKeys
+    ) {
+        // The remote address is only the client's once forwarded headers are trusted
+        return new LoginRateLimiter(ipEnabled ? ipCapacity : 0, ipRefillPerMinute, usernameCapacity, usernameRefillPerMinute,
+                maxKeys, System::nanoTime);
+    }
+
+    @Bean
+    public MeterBinder loginRateLimiterMetrics(LoginRateLimiter limiter) {
+        return registry -> {
+            for (LoginRateLimiter.Limit limit : LoginRateLimiter.Limit.values()) {
+                FunctionCounter.builder("auth.login.rate_limited", limiter, l -> l.getRejectedCount(limit))
+                        .description("Login attempts rejected before authentication by the rate limiter")
+                        .tag("limit", limit.tag())
+                        .register(registry);
+                Gauge.builder("auth.login.rate_limit.keys", limiter, l -> l.getKeyCount(limit))
+                        .description("Rate limit buckets held in memory")
+                        .tag("limit", limit.tag())
+                        .register(registry);
+                FunctionCounter.builder("auth.login.rate_limit.evictions", limiter, l -> l.getEvictedCount(limit))
+                        .tag("limit", limit.tag())
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package edu.belmont.demo.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.connection.TransportSettings;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientFactory;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoConnectionDetails;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.boot.autoconfigure.mongo.StandardMongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Transport for the two Mongo clients. The reactive client runs on one Netty
+ * event loop group owned here and closed with the context: with Netty on the
+ * classpath Boot creates a group per client but only shuts down the last one,
+ * leaving threads behind. Boot applies that Netty customizer to the blocking
+ * client as well, so the blocking client is declared here from a fresh
+ * settings builder and keeps the driver's default socket transport in both
+ * deployments.
+ * <p>
+ * Declaring the settings replaces Boot's default ones, so the connection
+ * string customizer that came with them is declared here too; every other
+ * customizer (such as the read route monitor) still applies to both clients.
+ */
+@Configuration
+public class MongoTransportConfig {
+
+    @Bean(destroyMethod = "shutdownGracefully")
+    public EventLoopGroup mongoEventLoopGroup() {
+        return new NioEventLoopGroup(0, new DefaultThreadFactory("mongo-netty", true));
+    }
+
+    /**
+     * Settings for the reactive client. Their Netty transport also tells
+     * Boot's own Netty customizer to stay out of both clients.
+     */
+    @Bean
+    public MongoClientSettings mongoClientSettings(EventLoopGroup mongoEventLoopGroup) {
+        return MongoClientSettings.builder()
+                .transportSettings(TransportSettings.nettyBuilder().eventLoopGroup(mongoEventLoopGroup).build())
+                .build();
+    }
+
+    @Bean
+    public MongoClient mongo(ObjectProvider<MongoClientSettingsBuilderCustomizer> builderCustomizers) {
+        return new MongoClientFactory(builderCustomizers.orderedStream().toList())
+                .createMongoClient(MongoClientSettings.builder().build());
+    }
+
+    @Bean
+    public StandardMongoClientSettingsBuilderCustomizer standardMongoSettingsCustomizer(
+            MongoProperties properties, MongoConnectionDetails connectionDetails) {
+        return new StandardMongoClientSettingsBuilderCustomizer(connectionDetails, properties.getUuidRepresentation());
+    }
+}
@@ -0,0 +1,48 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.service.PasswordHashingPool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class PasswordHashingConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public PasswordHashingPool passwordHashingPool(
+            @Value("${auth.bcrypt.threads:0}") int threads,
+            @Value("${auth.bcrypt.queueCapacity:64}") int queueCapacity,
+            @Value("${auth.bcrypt.retryAfterSeconds:1}") long retryAfterSeconds
+    ) {
+        return new PasswordHashingPool(threads, queueCapacity, retryAfterSeconds);
+    }
+
+    @Bean
+    public MeterBinder passwordHashingPoolMetrics(PasswordHashingPool pool) {
+        return registry -> {
+            Gauge.builder("auth.bcrypt.queue.depth", pool, PasswordHashingPool::getQueueDepth)
+                    .description("Password checks waiting for a hashing thread")
+                    .register(registry);
+            Gauge.builder("auth.bcrypt.queue.capacity", pool, PasswordHashingPool::getQueueCapacity)
+                    .register(registry);
+            Gauge.builder("auth.bcrypt.active", pool, PasswordHashingPool::getActiveCount)
+                    .description("Hashing threads currently busy")
+                    .register(registry);
+            FunctionCounter.builder("auth.bcrypt.rejected", pool, PasswordHashingPool::getRejectedCount)
+                    .description("Password checks shed because the queue was full")
+                    .register(registry);
+            FunctionTimer.builder("auth.bcrypt.queue.wait", pool,
+                            PasswordHashingPool::getCompletedCount,
+                            PasswordHashingPool::getTotalWaitNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("Time password checks spent queued before hashing started")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.service.JwtService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+/**
+ * Spring Security configuration for the reactive (WebFlux) stack.
+ * Mirrors {@link SecurityConfig}: stateless, no CSRF, with the bearer token
+ * verified once by {@link JwtAuthenticationWebFilter} and the same access rules
+ * applied before any handler runs.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtService jwtService) {
+        return http
+            // Disable CSRF for API endpoints
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+
+            // Configure CORS
+            .cors(cors -> cors.configurationSource(reactiveCorsConfigurationSource()))
+
+            // No HTTP basic, login form or server-side session
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+
+            // Verify the bearer token once, before authorization
+            .addFilterAt(new JwtAuthenticationWebFilter(jwtService), SecurityWebFiltersOrder.AUTHENTICATION)
+
+            // Same rules as the servlet stack
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers("/api/admin/**").hasRole("ADMIN")
+                .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .pathMatchers("/actuator/**").hasRole("ADMIN")
+                .pathMatchers("/api/profile", "/api/users").authenticated()
+                .anyExchange().permitAll())
+
+            // Reject with the API's JSON error bodies
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint((exchange, e) -> writeError(exchange, HttpStatus.UNAUTHORIZED,
+                        TokenAuthentication.unauthorizedMessage(
+                                exchange.getAttribute(TokenAuthentication.INVALID_TOKEN_ATTRIBUTE) != null)))
+                .accessDeniedHandler((exchange, e) -> writeError(exchange, HttpStatus.FORBIDDEN,
+                        TokenAuthentication.FORBIDDEN_MESSAGE)))
+            .build();
+    }
+
+    private static Mono<Void> writeError(ServerWebExchange exchange, HttpStatus status, String message) {
+        String accept = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT);
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(accept != null && accept.contains("application/x-ndjson")
+                ? MediaType.parseMediaType("application/x-ndjson") : MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(TokenAuthentication.errorBody(message))));
+    }
+
+    @Bean
+    public CorsConfigurationSource reactiveCorsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOriginPatterns(Arrays.asList(
+            "http://localhost:5173",
+            "http://localhost:3000",
+            "http://127.0.0.1:5173",
+            "http://127.0.0.1:3000"
+        ));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD"));
+        configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setAllowCredentials(true);
+        configuration.setMaxAge(3600L);
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/api/**", configuration);
+        return source;
+    }
+}
@@ -0,0 +1,48 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.repository.ReadRouteMonitor;
+import edu.belmont.demo.repository.SecondaryReads;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics for the routing of lag-tolerant reads to secondaries ({@link SecondaryReads}).
+ * The monitor is attached to every Mongo client Boot creates, blocking and reactive.
+ */
+@Configuration
+public class ReadRoutingConfig {
+
+    @Bean
+    public ReadRouteMonitor readRouteMonitor() {
+        return new ReadRouteMonitor();
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer readRouteMonitorCustomizer(ReadRouteMonitor monitor) {
+        return builder -> builder.addCommandListener(monitor)
+                .applyToServerSettings(server -> server.addServerListener(monitor));
+    }
+
+    @Bean
+    public MeterBinder readRoutingMetrics(ReadRouteMonitor monitor, SecondaryReads secondaryReads) {
+        return registry -> {
+            for (String route : ReadRouteMonitor.ROUTES) {
+                for (String server : ReadRouteMonitor.SERVERS) {
+                    FunctionCounter.builder("auth.mongo.reads", monitor, m -> m.getReadCount(route, server))
+                            .description("Read commands by requested route and the kind of server that ran them")
+                            .tags("route", route, "server", server)
+                            .register(registry);
+                }
+            }
+            Gauge.builder("auth.mongo.secondary_reads.max_staleness", secondaryReads,
+                            SecondaryReads::getMaxStalenessSeconds)
+                    .description("Replication lag accepted for reads routed to secondaries (0 when they stay on the primary)")
+                    .baseUnit("seconds")
+                    .register(registry);
+        };
+    }
+}
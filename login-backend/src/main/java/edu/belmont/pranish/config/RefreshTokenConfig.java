@@ -0,0 +1,44 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.repository.RefreshTokenRepository;
+import edu.belmont.demo.service.RefreshTokenService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class RefreshTokenConfig {
+
+    @Bean
+    public RefreshTokenService refreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${auth.refresh.ttlSeconds:1209600}") long ttlSeconds
+    ) {
+        return new RefreshTokenService(refreshTokenRepository, Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    @Bean
+    public MeterBinder refreshTokenMetrics(RefreshTokenService refreshTokens) {
+        return registry -> {
+            FunctionCounter.builder("auth.refresh_tokens", refreshTokens, RefreshTokenService::getIssuedCount)
+                    .tag("result", "issued")
+                    .description("Refresh token issues, rotations and rejections")
+                    .register(registry);
+            FunctionCounter.builder("auth.refresh_tokens", refreshTokens, RefreshTokenService::getRotatedCount)
+                    .tag("result", "rotated")
+                    .register(registry);
+            FunctionCounter.builder("auth.refresh_tokens", refreshTokens, RefreshTokenService::getRejectedCount)
+                    .tag("result", "rejected")
+                    .register(registry);
+            FunctionCounter.builder("auth.refresh_tokens", refreshTokens, RefreshTokenService::getReusedCount)
+                    .tag("result", "reused")
+                    .description("Already-used refresh tokens presented again; their families are revoked")
+                    .register(registry);
+        };
+    }
+}
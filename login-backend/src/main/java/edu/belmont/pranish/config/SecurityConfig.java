@@ -1,7 +1,13 @@
 package edu.belmont.demo.config;
 
+import edu.belmont.demo.service.JwtService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -9,18 +15,23 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.io.IOException;
 import java.util.Arrays;
 
 /**
  * Spring Security configuration for the Simple Login application.
- * Disables default security and configures CORS properly.
+ * Stateless bearer-token authentication: {@link JwtAuthenticationFilter} verifies
+ * the token once, and requests that lack the required authority are answered
+ * here, before controller dispatch, body binding or any database work.
  */
 @Configuration
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
 
     @Bean
@@ -29,7 +40,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtService jwtService) throws Exception {
         http
             // Disable CSRF for API endpoints
             .csrf(AbstractHttpConfigurer::disable)
@@ -40,19 +51,46 @@ public class SecurityConfig {
             // Disable session management (stateless)
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             
+            // Verify the bearer token once, before authorization
+            .addFilterBefore(new JwtAuthenticationFilter(jwtService), AuthorizationFilter.class)
+
             // Configure authorization
             .authorizeHttpRequests(authz -> authz
-                // Allow all requests to auth endpoints
-                .requestMatchers("/api/auth/**").permitAll()
-                // Allow all requests to admin endpoints (we'll handle auth in controllers)
-                .requestMatchers("/api/admin/**").permitAll()
-                // Allow all other requests
+                // The initial dispatch was already authorized; re-dispatches of
+                // streamed responses and error pages carry no token of their own
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                // Admin endpoints require an admin token
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                // Health checks stay open for load balancers; metrics need an admin token to scrape
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                // Profile and user list require any valid token
+                .requestMatchers("/api/profile", "/api/users").authenticated()
+                // Login, token refresh, logout, JWKS and the rest are public
                 .anyRequest().permitAll()
+            )
+
+            // Reject with the API's JSON error bodies
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint((request, response, e) -> writeError(request, response,
+                        HttpServletResponse.SC_UNAUTHORIZED, TokenAuthentication.unauthorizedMessage(
+                                request.getAttribute(TokenAuthentication.INVALID_TOKEN_ATTRIBUTE) != null)))
+                .accessDeniedHandler((request, response, e) -> writeError(request, response,
+                        HttpServletResponse.SC_FORBIDDEN, TokenAuthentication.FORBIDDEN_MESSAGE))
             );
 
         return http.build();
     }
 
+    private static void writeError(HttpServletRequest request, HttpServletResponse response, int status, String message)
+            throws IOException {
+        String accept = request.getHeader("Accept");
+        response.setStatus(status);
+        response.setContentType(accept != null && accept.contains("application/x-ndjson")
+                ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(TokenAuthentication.errorBody(message));
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,59 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.service.TokenClaims;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Pieces shared by the servlet and reactive token filters: reading the bearer
+ * token, turning verified claims into an {@link Authentication} whose principal
+ * is the {@link TokenClaims}, and the error bodies sent when a request is
+ * turned away.
+ */
+final class TokenAuthentication {
+
+    static final String BEARER_PREFIX = "Bearer ";
+    // Request attribute set when a bearer token was presented but did not verify
+    static final String INVALID_TOKEN_ATTRIBUTE = TokenAuthentication.class.getName() + ".invalidToken";
+    static final String FORBIDDEN_MESSAGE = "Admin access required";
+
+    private TokenAuthentication() {
+    }
+
+    /**
+     * @return The token from an {@code Authorization: Bearer} header, or null if there is none
+     */
+    static String bearerToken(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        return authorizationHeader.substring(BEARER_PREFIX.length());
+    }
+
+    /**
+     * Tokens without a role (issued to legacy accounts) authenticate with no authorities.
+     */
+    static Authentication of(TokenClaims claims) {
+        List<SimpleGrantedAuthority> authorities = claims.role() != null
+                ? List.of(new SimpleGrantedAuthority("ROLE_" + claims.role().toUpperCase(Locale.ROOT)))
+                : List.of();
+        return UsernamePasswordAuthenticationToken.authenticated(claims, null, authorities);
+    }
+
+    static String unauthorizedMessage(boolean invalidToken) {
+        return invalidToken ? "Invalid token" : "Unauthorized";
+    }
+
+    /**
+     * A {@code {"error": ...}} body, newline-terminated so it is also a valid
+     * NDJSON document for streaming clients.
+     */
+    static byte[] errorBody(String message) {
+        return ("{\"error\":\"" + message + "\"}\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
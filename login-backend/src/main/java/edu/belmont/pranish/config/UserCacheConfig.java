@@ -0,0 +1,53 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.repository.UserInvalidationBus;
+import edu.belmont.demo.service.UserCollectionVersion;
+import edu.belmont.demo.service.UserLookupCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class UserCacheConfig {
+
+    @Bean
+    public MeterBinder userLookupCacheMetrics(UserLookupCache cache, UserInvalidationBus invalidationBus,
+                                              UserCollectionVersion collectionVersion) {
+        return registry -> {
+            for (boolean credentials : new boolean[] {true, false}) {
+                String name = credentials ? "credentials" : "documents";
+                FunctionCounter.builder("auth.user_cache", cache, c -> c.getHits(credentials))
+                        .tags("cache", name, "result", "hit")
+                        .register(registry);
+                FunctionCounter.builder("auth.user_cache", cache, c -> c.getMisses(credentials))
+                        .tags("cache", name, "result", "miss")
+                        .register(registry);
+                Gauge.builder("auth.user_cache.size", cache, c -> c.getSize(credentials))
+                        .tag("cache", name)
+                        .register(registry);
+            }
+            Gauge.builder("auth.user_cache.staleness", invalidationBus, bus -> bus.getLastLagMillis() / 1000.0)
+                    .description("Delay between another instance publishing the latest invalidation and it being applied here")
+                    .baseUnit("seconds")
+                    .register(registry);
+            FunctionCounter.builder("auth.user_cache.invalidations.published", invalidationBus,
+                            UserInvalidationBus::getPublishedCount)
+                    .register(registry);
+            FunctionTimer.builder("auth.user_cache.invalidations.lag", invalidationBus,
+                            UserInvalidationBus::getReceivedCount,
+                            UserInvalidationBus::getTotalLagMillis,
+                            TimeUnit.MILLISECONDS)
+                    .description("Delay between other instances publishing invalidations and them being applied here")
+                    .register(registry);
+            FunctionCounter.builder("auth.users.not_modified", collectionVersion,
+                            UserCollectionVersion::getNotModifiedCount)
+                    .description("Admin user list and stats requests answered with 304 Not Modified")
+                    .register(registry);
+        };
+    }
+}
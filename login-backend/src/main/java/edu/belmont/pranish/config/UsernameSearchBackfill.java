@@ -0,0 +1,32 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds username search keys to users created before those fields existed,
+ * so indexed search finds every user.
+ */
+@Component
+public class UsernameSearchBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(UsernameSearchBackfill.class);
+
+    private final UserRepository userRepository;
+
+    public UsernameSearchBackfill(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int updated = userRepository.backfillUsernameSearchKeys();
+        if (updated > 0) {
+            log.info("Backfilled username search keys for {} users", updated);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package edu.belmont.demo.config;
+
+import edu.belmont.demo.service.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pinning diagnostics for the virtual-thread mode ({@code spring.threads.virtual.enabled=true}).
+ * Request handling and the Mongo calls made from it then run on virtual threads;
+ * BCrypt work stays on the platform threads of {@link edu.belmont.demo.service.PasswordHashingPool}.
+ */
+@Configuration
+@ConditionalOnProperty(name = {"spring.threads.virtual.enabled", "auth.virtualThreads.pinningDiagnostics.enabled"})
+public class VirtualThreadConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${auth.virtualThreads.pinnedThresholdMs:20}") long pinnedThresholdMs) {
+        return new VirtualThreadPinningMonitor(Duration.ofMillis(pinnedThresholdMs));
+    }
+
+    @Bean
+    public MeterBinder virtualThreadPinningMetrics(VirtualThreadPinningMonitor monitor) {
+        return registry -> FunctionTimer.builder("auth.virtual_threads.pinned", monitor,
+                        VirtualThreadPinningMonitor::getPinnedCount,
+                        VirtualThreadPinningMonitor::getPinnedNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Virtual threads that blocked while pinned to their carrier thread")
+                .register(registry);
+    }
+}
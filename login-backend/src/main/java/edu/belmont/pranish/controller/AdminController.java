@@ -1,15 +1,27 @@
 package edu.belmont.demo.controller;
 
+import edu.belmont.demo.model.CursorPage;
+import edu.belmont.demo.model.AdminUserView;
 import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserUpdate;
 import edu.belmont.demo.service.AuthService;
+import edu.belmont.demo.service.UserCollectionVersion;
+import edu.belmont.demo.service.UserImportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,37 +31,98 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/admin")
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000", "http://127.0.0.1:5173"})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AdminController {
 
+    private static final int MAX_BULK_UPDATES = 1000;
+    // Let the browser keep a copy but revalidate it with If-None-Match on every poll
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserCollectionVersion collectionVersion;
+
     /**
      * Get all users with pagination and optional search query.
      * 
-     * @param page Page number (0-based)
+     * Passing {@code after} (empty for the first page) switches to cursor mode:
+     * rows are ordered by ID, paging cost does not grow with depth, and the
+     * total is only counted when {@code includeTotal=true}.
+     * 
+     * @param page Page number (0-based), offset mode only
      * @param size Page size
      * @param query Optional search query for username
-     * @return Paginated list of users
+     * @param match "contains" (default) or "prefix" matching for the query
+     * @param after Opaque cursor from the previous page's nextCursor
+     * @param includeTotal Whether to count matching users in cursor mode
+     * @param ifNoneMatch ETag of a copy the caller already holds, if any
+     * @return Paginated list of users, or 304 if the users collection has not
+     *         changed since the caller's copy
      */
     @GetMapping("/users")
     public ResponseEntity<Map<String, Object>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String query) {
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "contains") String match,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
+        boolean prefixOnly = "prefix".equalsIgnoreCase(match);
+        // Taken before the query, so the data is never older than the ETag
+        String eTag = collectionVersion.eTag("admin/users", page, size, query, prefixOnly, after, includeTotal);
+        if (collectionVersion.notModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        if (after != null) {
+            return getUsersByCursor(after, size, query, prefixOnly, includeTotal, eTag);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
-        Page<UserDocument> usersPage = authService.getAllUsers(query, pageable);
+        Page<UserDocument> usersPage = authService.getAllUsers(query, prefixOnly, pageable);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("users", usersPage.getContent());
+        response.put("users", usersPage.getContent().stream().map(AdminUserView::of).toList());
         response.put("currentPage", usersPage.getNumber());
         response.put("totalItems", usersPage.getTotalElements());
         response.put("totalPages", usersPage.getTotalPages());
         response.put("hasNext", usersPage.hasNext());
         response.put("hasPrevious", usersPage.hasPrevious());
         
-        return ResponseEntity.ok(response);
+        return revalidated(HttpStatus.OK, eTag).body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> getUsersByCursor(
+            String after, int size, String query, boolean prefixOnly, boolean includeTotal, String eTag) {
+
+        Map<String, Object> response = new HashMap<>();
+        if (size < 1) {
+            response.put("error", "size must be at least 1");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        CursorPage<UserDocument> usersPage;
+        try {
+            usersPage = authService.getUsersAfter(after, query, prefixOnly, size);
+        } catch (IllegalArgumentException e) {
+            response.put("error", "Invalid cursor");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        response.put("users", usersPage.items().stream().map(AdminUserView::of).toList());
+        response.put("nextCursor", usersPage.nextCursor());
+        response.put("hasNext", usersPage.hasNext());
+        if (includeTotal) {
+            response.put("totalItems", authService.countUsers(query, prefixOnly));
+        }
+
+        return revalidated(HttpStatus.OK, eTag).body(response);
     }
 
     /**
@@ -57,29 +130,92 @@ public class AdminController {
      * 
      * @param id User ID
      * @param updateData Map containing role and isActive fields
-     * @return Updated user document
+     * @return Updated user
      */
     @PatchMapping("/users/{id}")
-    public ResponseEntity<UserDocument> updateUser(
+    public ResponseEntity<AdminUserView> updateUser(
             @PathVariable String id,
             @RequestBody Map<String, Object> updateData) {
         
         UserDocument updatedUser = authService.updateUser(id, updateData);
         if (updatedUser != null) {
-            return ResponseEntity.ok(updatedUser);
+            return ResponseEntity.ok(AdminUserView.of(updatedUser));
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Update roles and status of many users at once.
+     * 
+     * @param updates List of {id, role, isActive} entries
+     * @return Counts of requested, modified and unchanged users, and skipped IDs
+     */
+    @PatchMapping("/users")
+    public ResponseEntity<Map<String, Object>> updateUsers(@RequestBody List<UserUpdate> updates) {
+        if (updates.size() > MAX_BULK_UPDATES) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", "At most " + MAX_BULK_UPDATES + " updates per request");
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(authService.updateUsers(updates));
+    }
+
+    /**
+     * Import users from CSV (header row with username, password and optional
+     * role, isActive columns) or NDJSON (one object per line).
+     * 
+     * @param contentType text/csv or application/x-ndjson
+     * @param body Request body, read as a stream
+     * @return Counts per outcome and the rows that were not created
+     */
+    @PostMapping(value = "/users/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<Map<String, Object>> importUsers(
+            @RequestHeader("Content-Type") String contentType,
+            InputStream body) throws IOException {
+
+        UserImportService.Format format = contentType.startsWith("text/csv")
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        try {
+            return ResponseEntity.ok(userImportService.importUsers(body, format));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(409).body(response);
+        }
+    }
+
     /**
      * Get dashboard statistics.
      * 
-     * @return Map containing various user statistics
+     * @param ifNoneMatch ETag of a copy the caller already holds, if any
+     * @return Map containing various user statistics, or 304 if the users
+     *         collection has not changed since the caller's copy
      */
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getDashboardStats() {
+    public ResponseEntity<Map<String, Object>> getDashboardStats(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // Today's login count restarts at midnight without any write
+        String eTag = collectionVersion.eTag("admin/stats", AuthService.statsLoginsSince());
+        if (collectionVersion.notModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
         Map<String, Object> stats = authService.getUserStats();
-        return ResponseEntity.ok(stats);
+        return revalidated(HttpStatus.OK, eTag).body(stats);
+    }
+
+    private static ResponseEntity<Map<String, Object>> notModified(String eTag) {
+        return revalidated(HttpStatus.NOT_MODIFIED, eTag).build();
+    }
+
+    // The same ETag covers every encoding of the response, so caches must key on Accept too
+    private static ResponseEntity.BodyBuilder revalidated(HttpStatus status, String eTag) {
+        return ResponseEntity.status(status).eTag(eTag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT);
     }
 }
@@ -1,16 +1,36 @@
 package edu.belmont.demo.controller;
 
 import edu.belmont.demo.model.LoginRequest;
+import edu.belmont.demo.model.RefreshRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 import edu.belmont.demo.service.AuthService;
 import edu.belmont.demo.service.JwtService;
-import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.service.LoginMetrics;
+import edu.belmont.demo.service.LoginRateLimiter;
+import edu.belmont.demo.service.PasswordHashingRejectedException;
+import edu.belmont.demo.service.RefreshTokenService;
+import edu.belmont.demo.service.TokenClaims;
+import edu.belmont.demo.model.UserCredentials;
+import edu.belmont.demo.model.UserSummary;
 
 /**
  * REST Controller for handling authentication operations.
@@ -20,14 +40,30 @@ import edu.belmont.demo.model.UserDocument;
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000", "http://127.0.0.1:5173"})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final AuthService authService;
     private final JwtService jwtService;
+    private final LoginMetrics loginMetrics;
+    private final RefreshTokenService refreshTokenService;
+    // Null when rate limiting is disabled
+    private final LoginRateLimiter loginRateLimiter;
+    // No separator between root values; rows are terminated with '\n' explicitly
+    private final JsonFactory ndjsonFactory = new JsonFactoryBuilder().rootValueSeparator((String) null).build();
+    private final int streamBatchSize;
 
-    public AuthController(AuthService authService, JwtService jwtService) {
+    public AuthController(AuthService authService, JwtService jwtService, LoginMetrics loginMetrics,
+                          RefreshTokenService refreshTokenService, Optional<LoginRateLimiter> loginRateLimiter,
+                          @Value("${auth.users.streamBatchSize:500}") int streamBatchSize) {
         this.authService = authService;
         this.jwtService = jwtService;
+        this.loginMetrics = loginMetrics;
+        this.refreshTokenService = refreshTokenService;
+        this.loginRateLimiter = loginRateLimiter.orElse(null);
+        this.streamBatchSize = streamBatchSize;
     }
 
     /**
@@ -37,103 +73,209 @@ public class AuthController {
      * @return ResponseEntity with a token if credentials are valid, or an error message if invalid
      * 
      * Expected behavior:
-     * - If username is "admin" and password is "password", returns 200 OK with a fake JWT token
+     * - If username is "admin" and password is "password", returns 200 OK with a short-lived
+     *   access token and a refresh token for {@link #refresh(RefreshRequest)}
      * - Otherwise, returns 401 Unauthorized with an error message
+     * - If the account is deactivated, returns 403 Forbidden with an error message
+     * - If the password hashing queue is full, returns 503 Service Unavailable with Retry-After
+     * - If the client has made too many attempts, or the username too many failed ones,
+     *   returns 429 Too Many Requests with Retry-After, without looking up the user
      */
     @PostMapping("/login")
-    public ResponseEntity<Map<String, String>> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<Map<String, String>> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        long start = System.nanoTime();
+        try {
+            if (loginRateLimiter != null) {
+                long retryAfterSeconds = loginRateLimiter.tryAcquire(request.getRemoteAddr(), loginRequest.getUsername());
+                if (retryAfterSeconds > 0) {
+                    return rateLimited(retryAfterSeconds);
+                }
+            }
+            return authenticateAndIssueToken(loginRequest);
+        } finally {
+            loginMetrics.recordLogin(start);
+        }
+    }
+
+    private ResponseEntity<Map<String, String>> rateLimited(long retryAfterSeconds) {
+        loginMetrics.recordOutcome(LoginMetrics.Outcome.RATE_LIMITED);
         Map<String, String> response = new HashMap<>();
+        response.put("error", "Too many login attempts, please retry later");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
 
-        boolean valid = authService.validateCredentials(loginRequest.getUsername(), loginRequest.getPassword());
-        if (!valid) {
+    private ResponseEntity<Map<String, String>> authenticateAndIssueToken(LoginRequest loginRequest) {
+        Map<String, String> response = new HashMap<>();
+
+        Optional<UserCredentials> credentials;
+        try {
+            credentials = authService.authenticate(loginRequest.getUsername(), loginRequest.getPassword());
+        } catch (PasswordHashingRejectedException e) {
+            loginMetrics.recordOutcome(LoginMetrics.Outcome.REJECTED);
+            response.put("error", "Too many login attempts in progress, please retry shortly");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
+        }
+        if (credentials.isEmpty()) {
             response.put("error", "Invalid credentials");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
+        // Only failed attempts count against the username
+        if (loginRateLimiter != null) {
+            loginRateLimiter.refund(loginRequest.getUsername());
+        }
+        if (!credentials.get().isActive()) {
+            loginMetrics.recordOutcome(LoginMetrics.Outcome.INACTIVE);
+            response.put("error", "Account is deactivated");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
         
         // Update last login timestamp
-        authService.updateLastLogin(loginRequest.getUsername());
+        authService.updateLastLogin(credentials.get());
         
-        String token = jwtService.issueToken(loginRequest.getUsername());
+        UserCredentials user = credentials.get();
+        long issueStart = System.nanoTime();
+        String token = jwtService.issueToken(loginRequest.getUsername(), user.role(), user.isActive(), user.tokenVersion());
+        String refreshToken = refreshTokenService.issue(user.username());
+        loginMetrics.recordStage(LoginMetrics.Stage.ISSUE_TOKEN, issueStart);
+        loginMetrics.recordOutcome(LoginMetrics.Outcome.SUCCESS);
         response.put("token", token);
+        response.put("refreshToken", refreshToken);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Exchange a refresh token for a new access token and a replacement refresh token.
+     * No password is checked, so this costs no BCrypt work.
+     * 
+     * @param refreshRequest The refresh token from the last login or refresh
+     * @return ResponseEntity with new tokens, or an error message
+     * 
+     * Expected behavior:
+     * - If the refresh token is valid and unused, returns 200 OK with token and refreshToken;
+     *   the presented refresh token can no longer be used
+     * - If it is unknown, expired or already used, returns 401 Unauthorized; reusing a token
+     *   also revokes every token issued from the same login
+     * - If the account has been deactivated, returns 403 Forbidden and revokes the tokens
+     */
+    @PostMapping("/token/refresh")
+    public ResponseEntity<Map<String, String>> refresh(@RequestBody RefreshRequest refreshRequest) {
+        Map<String, String> response = new HashMap<>();
+
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+        if (rotation.isEmpty()) {
+            response.put("error", "Invalid refresh token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        Optional<UserCredentials> credentials = authService.getCredentials(rotation.get().username());
+        if (credentials.isEmpty() || !credentials.get().isActive()) {
+            refreshTokenService.revokeFamily(rotation.get().familyId());
+            response.put("error", credentials.isEmpty() ? "Invalid refresh token" : "Account is deactivated");
+            return ResponseEntity.status(credentials.isEmpty() ? HttpStatus.UNAUTHORIZED : HttpStatus.FORBIDDEN)
+                    .body(response);
+        }
+
+        UserCredentials user = credentials.get();
+        response.put("token", jwtService.issueToken(user.username(), user.role(), user.isActive(), user.tokenVersion()));
+        response.put("refreshToken", rotation.get().refreshToken());
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Revoke a refresh token and every token issued from the same login.
+     * Access tokens already issued stay valid until they expire.
+     * 
+     * @param refreshRequest The refresh token to revoke
+     * @return 204 No Content, whether or not the token was known
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody RefreshRequest refreshRequest) {
+        refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Profile endpoint that returns user information for authenticated users.
+     * Username and role come from the token claims verified by the security
+     * filter, so no database lookup is needed.
      * 
-     * @param authHeader The Authorization header containing the Bearer token
-     * @return ResponseEntity with user profile if token is valid, or an error message if invalid
+     * @param claims Claims of the verified bearer token
+     * @return ResponseEntity with the user profile
      * 
      * Expected behavior:
-     * - If Authorization header contains "Bearer fake-jwt-token", returns 200 OK with user profile
-     * - Otherwise, returns 401 Unauthorized with an error message
+     * - If Authorization header contains a valid Bearer token, returns 200 OK with user profile
+     * - Otherwise (including tokens invalidated by a role change or deactivation), the
+     *   security filter chain returns 401 Unauthorized before this method runs
      */
     @GetMapping("/profile")
-    public ResponseEntity<Map<String, String>> getProfile(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        
+    public ResponseEntity<Map<String, String>> getProfile(@AuthenticationPrincipal TokenClaims claims) {
         Map<String, String> response = new HashMap<>();
-        
-        // Check if the Authorization header is present and valid
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring("Bearer ".length());
-            String subject = jwtService.validateAndGetSubject(token);
-            if (subject != null) {
-                // fetch role from DB if available
-                String role = authService.getUser(subject).map(u -> u.getRole() != null ? u.getRole() : "instructor").orElse("instructor");
-                response.put("username", subject);
-                response.put("role", role);
-                return ResponseEntity.ok(response);
-            }
-        }
-        response.put("error", "Unauthorized");
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        response.put("username", claims.subject());
+        response.put("role", claims.role() != null ? claims.role() : "instructor");
+        return ResponseEntity.ok(response);
     }
 
     /**
      * Users list endpoint that returns all users for authenticated users.
      * 
-     * @param authHeader The Authorization header containing the Bearer token
-     * @return ResponseEntity with list of users if token is valid, or an error message if invalid
+     * @param claims Claims of the verified bearer token
+     * @return ResponseEntity with list of users
      * 
      * Expected behavior:
      * - If Authorization header contains valid Bearer token, returns 200 OK with list of all users
-     * - Otherwise, returns 401 Unauthorized with an error message
+     * - Otherwise, the security filter chain returns 401 Unauthorized with an error message
      */
     @GetMapping("/users")
-    public ResponseEntity<Map<String, Object>> getAllUsers(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-
+    public ResponseEntity<Map<String, Object>> getAllUsers(@AuthenticationPrincipal TokenClaims claims) {
         Map<String, Object> response = new HashMap<>();
 
-        // Validate authentication
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            response.put("error", "Unauthorized");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        // Only username and role are read from the database and serialized
+        List<UserSummary> userList;
+        try (Stream<UserSummary> users = authService.streamUserSummaries(streamBatchSize)) {
+            userList = users.map(AuthController::withDefaultRole).toList();
         }
 
-        String token = authHeader.substring("Bearer ".length());
-        String subject = jwtService.validateAndGetSubject(token);
-        if (subject == null) {
-            response.put("error", "Invalid token");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-        }
-
-        // Get all users from database
-        List<UserDocument> users = authService.getAllUsers();
-        List<Map<String, String>> userList = users.stream()
-                .map(user -> {
-                    Map<String, String> userInfo = new HashMap<>();
-                    userInfo.put("username", user.getUsername());
-                    userInfo.put("role", user.getRole() != null ? user.getRole() : "instructor");
-                    return userInfo;
-                })
-                .collect(java.util.stream.Collectors.toList());
-
         response.put("users", userList);
         response.put("count", userList.size());
         return ResponseEntity.ok(response);
     }
 
-}
+    /**
+     * Streaming variant of the users list, selected with {@code Accept: application/x-ndjson}.
+     * Reads a projected cursor and writes one {@code {"username","role"}} object per line,
+     * flushing every batch, so memory use does not grow with the number of users.
+     * 
+     * @param claims Claims of the verified bearer token
+     * @return 200 OK with an NDJSON body; unauthenticated requests get a single
+     *         NDJSON error line from the security filter chain
+     */
+    @GetMapping(value = "/users", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(@AuthenticationPrincipal TokenClaims claims) {
+        StreamingResponseBody body = out -> {
+            try (Stream<UserSummary> users = authService.streamUserSummaries(streamBatchSize);
+                 JsonGenerator generator = ndjsonFactory.createGenerator(out)) {
+                int pending = 0;
+                for (Iterator<UserSummary> it = users.iterator(); it.hasNext(); ) {
+                    UserSummary user = withDefaultRole(it.next());
+                    generator.writeStartObject();
+                    generator.writeStringField("username", user.username());
+                    generator.writeStringField("role", user.role());
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    if (++pending == streamBatchSize) {
+                        generator.flush();
+                        pending = 0;
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
 
+    static UserSummary withDefaultRole(UserSummary user) {
+        return user.role() != null ? user : new UserSummary(user.username(), "instructor");
+    }
+}
@@ -0,0 +1,64 @@
+package edu.belmont.demo.controller;
+
+import edu.belmont.demo.service.SigningKeySet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Publishes the public keys that verify access tokens, so other services can
+ * check tokens locally instead of calling {@code /api/profile}. Serves on both
+ * web stacks.
+ */
+@RestController
+public class JwksController {
+
+    private static final byte[] NO_KEYS = "{\"keys\":[]}".getBytes(StandardCharsets.UTF_8);
+    private static final String NO_KEYS_ETAG = "\"no-keys\"";
+
+    private final byte[] jwks;
+    private final String eTag;
+    private final CacheControl cacheControl;
+
+    public JwksController(Optional<SigningKeySet> signingKeySet,
+                          @Value("${auth.jwt.jwksMaxAgeSeconds:300}") long maxAgeSeconds) {
+        this.jwks = signingKeySet.map(SigningKeySet::getJwks).orElse(NO_KEYS);
+        this.eTag = signingKeySet.map(SigningKeySet::getJwksETag).orElse(NO_KEYS_ETAG);
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    /**
+     * Get the JSON Web Key Set for token verification.
+     * 
+     * @param ifNoneMatch ETag of a copy the caller already holds, if any
+     * @return ResponseEntity with the key set, or 304 if the caller's copy is current
+     * 
+     * Expected behavior:
+     * - Returns 200 OK with {"keys": [...]} (empty while tokens are signed HS256),
+     *   an ETag and Cache-Control: max-age
+     * - If If-None-Match carries the current ETag, returns 304 Not Modified with no body
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<byte[]> getJwks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (ifNoneMatch != null && (ifNoneMatch.contains(eTag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jwks);
+    }
+}
@@ -0,0 +1,188 @@
+package edu.belmont.demo.controller;
+
+import edu.belmont.demo.model.AdminUserView;
+import edu.belmont.demo.model.UserUpdate;
+import edu.belmont.demo.service.AuthService;
+import edu.belmont.demo.service.ReactiveAuthService;
+import edu.belmont.demo.service.UserCollectionVersion;
+import edu.belmont.demo.service.UserImportService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive counterpart of {@link AdminController}, active when the application
+ * runs on WebFlux. Paths, status codes and response bodies are the same.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000", "http://127.0.0.1:5173"})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAdminController {
+
+    private static final int MAX_BULK_UPDATES = 1000;
+    // Request body chunks buffered ahead of the import reader
+    private static final int IMPORT_BUFFER_DEMAND = 16;
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final ReactiveAuthService authService;
+    private final UserImportService userImportService;
+    private final UserCollectionVersion collectionVersion;
+
+    public ReactiveAdminController(ReactiveAuthService authService, UserImportService userImportService,
+                                   UserCollectionVersion collectionVersion) {
+        this.authService = authService;
+        this.userImportService = userImportService;
+        this.collectionVersion = collectionVersion;
+    }
+
+    /**
+     * @see AdminController#getAllUsers(int, int, String, String, String, boolean, String)
+     */
+    @GetMapping("/users")
+    public Mono<ResponseEntity<Map<String, Object>>> getAllUsers(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "contains") String match,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        boolean prefixOnly = "prefix".equalsIgnoreCase(match);
+        // Taken before the query, so the data is never older than the ETag
+        String eTag = collectionVersion.eTag("admin/users", page, size, query, prefixOnly, after, includeTotal);
+        if (collectionVersion.notModified(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(eTag));
+        }
+        if (after != null) {
+            return getUsersByCursor(after, size, query, prefixOnly, includeTotal, eTag);
+        }
+
+        return authService.getAllUsers(query, prefixOnly, PageRequest.of(page, size))
+                .map(usersPage -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("users", usersPage.getContent().stream().map(AdminUserView::of).toList());
+                    response.put("currentPage", usersPage.getNumber());
+                    response.put("totalItems", usersPage.getTotalElements());
+                    response.put("totalPages", usersPage.getTotalPages());
+                    response.put("hasNext", usersPage.hasNext());
+                    response.put("hasPrevious", usersPage.hasPrevious());
+                    return revalidated(HttpStatus.OK, eTag).body(response);
+                });
+    }
+
+    private Mono<ResponseEntity<Map<String, Object>>> getUsersByCursor(
+            String after, int size, String query, boolean prefixOnly, boolean includeTotal, String eTag) {
+
+        if (size < 1) {
+            return Mono.just(error(HttpStatus.BAD_REQUEST, "size must be at least 1"));
+        }
+
+        Mono<Long> total = includeTotal ? authService.countUsers(query, prefixOnly) : Mono.just(-1L);
+        return authService.getUsersAfter(after, query, prefixOnly, size)
+                .zipWith(total, (usersPage, totalItems) -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("users", usersPage.items().stream().map(AdminUserView::of).toList());
+                    response.put("nextCursor", usersPage.nextCursor());
+                    response.put("hasNext", usersPage.hasNext());
+                    if (includeTotal) {
+                        response.put("totalItems", totalItems);
+                    }
+                    return revalidated(HttpStatus.OK, eTag).body(response);
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(error(HttpStatus.BAD_REQUEST, "Invalid cursor")));
+    }
+
+    /**
+     * @see AdminController#updateUser(String, Map)
+     */
+    @PatchMapping("/users/{id}")
+    public Mono<ResponseEntity<AdminUserView>> updateUser(
+            @PathVariable String id,
+            @RequestBody Map<String, Object> updateData) {
+
+        return authService.updateUser(id, updateData)
+                .map(user -> ResponseEntity.ok(AdminUserView.of(user)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * @see AdminController#updateUsers(List)
+     */
+    @PatchMapping("/users")
+    public Mono<ResponseEntity<Map<String, Object>>> updateUsers(@RequestBody List<UserUpdate> updates) {
+        if (updates.size() > MAX_BULK_UPDATES) {
+            return Mono.just(error(HttpStatus.BAD_REQUEST, "At most " + MAX_BULK_UPDATES + " updates per request"));
+        }
+        return authService.updateUsers(updates).map(ResponseEntity::ok);
+    }
+
+    /**
+     * The import pipeline reads an InputStream, so it runs on the bounded
+     * elastic scheduler and pulls the request body through a bounded buffer.
+     *
+     * @see AdminController#importUsers(String, InputStream)
+     */
+    @PostMapping(value = "/users/import", consumes = {"text/csv", "application/x-ndjson"})
+    public Mono<ResponseEntity<Map<String, Object>>> importUsers(
+            @RequestHeader("Content-Type") String contentType,
+            @RequestBody Flux<DataBuffer> body) {
+
+        UserImportService.Format format = contentType.startsWith("text/csv")
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        return Mono.fromCallable(() -> {
+                    try (InputStream input = DataBufferUtils.subscriberInputStream(body, IMPORT_BUFFER_DEMAND)) {
+                        return ResponseEntity.ok(userImportService.importUsers(input, format));
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(error(HttpStatus.BAD_REQUEST, e.getMessage())))
+                .onErrorResume(IllegalStateException.class, e -> Mono.just(error(HttpStatus.CONFLICT, e.getMessage())));
+    }
+
+    /**
+     * @see AdminController#getDashboardStats(String)
+     */
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<Map<String, Object>>> getDashboardStats(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String eTag = collectionVersion.eTag("admin/stats", AuthService.statsLoginsSince());
+        if (collectionVersion.notModified(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(eTag));
+        }
+        return authService.getUserStats()
+                .map(stats -> revalidated(HttpStatus.OK, eTag).body(stats));
+    }
+
+    private static ResponseEntity<Map<String, Object>> notModified(String eTag) {
+        return revalidated(HttpStatus.NOT_MODIFIED, eTag).build();
+    }
+
+    // The same ETag covers every encoding of the response, so caches must key on Accept too
+    private static ResponseEntity.BodyBuilder revalidated(HttpStatus status, String eTag) {
+        return ResponseEntity.status(status).eTag(eTag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -0,0 +1,234 @@
+package edu.belmont.demo.controller;
+
+import edu.belmont.demo.model.LoginRequest;
+import edu.belmont.demo.model.RefreshRequest;
+import edu.belmont.demo.model.UserCredentials;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.service.JwtService;
+import edu.belmont.demo.service.LoginMetrics;
+import edu.belmont.demo.service.LoginRateLimiter;
+import edu.belmont.demo.service.PasswordHashingRejectedException;
+import edu.belmont.demo.service.ReactiveAuthService;
+import edu.belmont.demo.service.RefreshTokenService;
+import edu.belmont.demo.service.TokenClaims;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Reactive counterpart of {@link AuthController}, active when the application
+ * runs on WebFlux. Paths, status codes and response bodies are the same.
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000", "http://127.0.0.1:5173"})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ReactiveAuthService authService;
+    private final JwtService jwtService;
+    private final LoginMetrics loginMetrics;
+    private final RefreshTokenService refreshTokenService;
+    // Null when rate limiting is disabled
+    private final LoginRateLimiter loginRateLimiter;
+
+    public ReactiveAuthController(ReactiveAuthService authService, JwtService jwtService, LoginMetrics loginMetrics,
+                                  RefreshTokenService refreshTokenService, Optional<LoginRateLimiter> loginRateLimiter) {
+        this.authService = authService;
+        this.jwtService = jwtService;
+        this.loginMetrics = loginMetrics;
+        this.refreshTokenService = refreshTokenService;
+        this.loginRateLimiter = loginRateLimiter.orElse(null);
+    }
+
+    /**
+     * @see AuthController#login
+     */
+    @PostMapping("/login")
+    public Mono<ResponseEntity<Map<String, String>>> login(@RequestBody LoginRequest loginRequest,
+                                                           ServerHttpRequest request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            if (loginRateLimiter != null) {
+                long retryAfterSeconds = loginRateLimiter.tryAcquire(clientIp(request), loginRequest.getUsername());
+                if (retryAfterSeconds > 0) {
+                    loginMetrics.recordLogin(start);
+                    return Mono.just(rateLimited(retryAfterSeconds));
+                }
+            }
+            return authenticateAndIssueToken(loginRequest)
+                    .doFinally(signal -> loginMetrics.recordLogin(start));
+        });
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return null;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    private ResponseEntity<Map<String, String>> rateLimited(long retryAfterSeconds) {
+        loginMetrics.recordOutcome(LoginMetrics.Outcome.RATE_LIMITED);
+        Map<String, String> response = new HashMap<>();
+        response.put("error", "Too many login attempts, please retry later");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+
+    private Mono<ResponseEntity<Map<String, String>>> authenticateAndIssueToken(LoginRequest loginRequest) {
+        return authService.authenticate(loginRequest.getUsername(), loginRequest.getPassword())
+                .flatMap(credentials -> issueToken(loginRequest, credentials))
+                .defaultIfEmpty(error(HttpStatus.UNAUTHORIZED, "Invalid credentials"))
+                .onErrorResume(PasswordHashingRejectedException.class, e -> {
+                    loginMetrics.recordOutcome(LoginMetrics.Outcome.REJECTED);
+                    Map<String, String> response = new HashMap<>();
+                    response.put("error", "Too many login attempts in progress, please retry shortly");
+                    return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                            .body(response));
+                });
+    }
+
+    private Mono<ResponseEntity<Map<String, String>>> issueToken(LoginRequest loginRequest, UserCredentials user) {
+        // Only failed attempts count against the username
+        if (loginRateLimiter != null) {
+            loginRateLimiter.refund(loginRequest.getUsername());
+        }
+        if (!user.isActive()) {
+            loginMetrics.recordOutcome(LoginMetrics.Outcome.INACTIVE);
+            return Mono.just(error(HttpStatus.FORBIDDEN, "Account is deactivated"));
+        }
+
+        // Update last login timestamp
+        authService.updateLastLogin(user);
+
+        long issueStart = System.nanoTime();
+        String token = jwtService.issueToken(loginRequest.getUsername(), user.role(), user.isActive(), user.tokenVersion());
+        return blocking(() -> refreshTokenService.issue(user.username()))
+                .map(refreshToken -> {
+                    loginMetrics.recordStage(LoginMetrics.Stage.ISSUE_TOKEN, issueStart);
+                    loginMetrics.recordOutcome(LoginMetrics.Outcome.SUCCESS);
+                    Map<String, String> response = new HashMap<>();
+                    response.put("token", token);
+                    response.put("refreshToken", refreshToken);
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Refresh tokens are stored through the blocking repository shared with
+     * the servlet stack, so they are read and written on the bounded elastic
+     * scheduler rather than an event-loop thread.
+     *
+     * @see AuthController#refresh(RefreshRequest)
+     */
+    @PostMapping("/token/refresh")
+    public Mono<ResponseEntity<Map<String, String>>> refresh(@RequestBody RefreshRequest refreshRequest) {
+        return blocking(() -> refreshTokenService.rotate(refreshRequest.getRefreshToken()))
+                .flatMap(rotation -> rotation
+                        .map(this::issueRefreshedToken)
+                        .orElseGet(() -> Mono.just(error(HttpStatus.UNAUTHORIZED, "Invalid refresh token"))));
+    }
+
+    private Mono<ResponseEntity<Map<String, String>>> issueRefreshedToken(RefreshTokenService.Rotation rotation) {
+        return authService.getCredentials(rotation.username())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(credentials -> {
+                    if (credentials.isEmpty() || !credentials.get().isActive()) {
+                        ResponseEntity<Map<String, String>> denied = credentials.isEmpty()
+                                ? error(HttpStatus.UNAUTHORIZED, "Invalid refresh token")
+                                : error(HttpStatus.FORBIDDEN, "Account is deactivated");
+                        return blocking(() -> {
+                            refreshTokenService.revokeFamily(rotation.familyId());
+                            return denied;
+                        });
+                    }
+                    UserCredentials user = credentials.get();
+                    Map<String, String> response = new HashMap<>();
+                    response.put("token", jwtService.issueToken(user.username(), user.role(), user.isActive(), user.tokenVersion()));
+                    response.put("refreshToken", rotation.refreshToken());
+                    return Mono.just(ResponseEntity.ok(response));
+                });
+    }
+
+    /**
+     * @see AuthController#logout(RefreshRequest)
+     */
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(@RequestBody RefreshRequest refreshRequest) {
+        return blocking(() -> {
+            refreshTokenService.revoke(refreshRequest.getRefreshToken());
+            return ResponseEntity.noContent().<Void>build();
+        });
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @see AuthController#getProfile(TokenClaims)
+     */
+    @GetMapping("/profile")
+    public ResponseEntity<Map<String, String>> getProfile(@AuthenticationPrincipal TokenClaims claims) {
+        Map<String, String> response = new HashMap<>();
+        response.put("username", claims.subject());
+        response.put("role", claims.role() != null ? claims.role() : "instructor");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * @see AuthController#getAllUsers(TokenClaims)
+     */
+    @GetMapping("/users")
+    public Mono<ResponseEntity<Map<String, Object>>> getAllUsers(@AuthenticationPrincipal TokenClaims claims) {
+        return authService.getUserSummaries()
+                .map(AuthController::withDefaultRole)
+                .collectList()
+                .map(userList -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("users", userList);
+                    response.put("count", userList.size());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Streaming variant of the users list, selected with {@code Accept: application/x-ndjson}.
+     * Rows are written as the cursor yields them, with backpressure from the connection.
+     *
+     * @see AuthController#streamAllUsers(TokenClaims)
+     */
+    @GetMapping(value = "/users", produces = "application/x-ndjson")
+    public ResponseEntity<Flux<UserSummary>> streamAllUsers(@AuthenticationPrincipal TokenClaims claims) {
+        Flux<UserSummary> users = authService.getUserSummaries()
+                .map(AuthController::withDefaultRole);
+        return ResponseEntity.ok().contentType(NDJSON).body(users);
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
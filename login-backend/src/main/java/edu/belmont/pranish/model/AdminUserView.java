@@ -0,0 +1,24 @@
+package edu.belmont.demo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the admin endpoints return for a user. Leaves out the password hash,
+ * search keys and token revocation state that {@link UserDocument} carries.
+ *
+ * @param id User document ID
+ * @param username Username
+ * @param role User role
+ * @param active Whether the account may sign in
+ * @param lastLoginAt Last successful login, if any
+ * @param createdAt When the user was created
+ * @param updatedAt When the user was last modified
+ */
+public record AdminUserView(String id, String username, String role, boolean active,
+                            LocalDateTime lastLoginAt, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    public static AdminUserView of(UserDocument user) {
+        return new AdminUserView(user.getId(), user.getUsername(), user.getRole(), user.isActive(),
+                user.getLastLoginAt(), user.getCreatedAt(), user.getUpdatedAt());
+    }
+}
@@ -0,0 +1,12 @@
+package edu.belmont.demo.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk account update.
+ *
+ * @param modified Number of users whose role or active status changed
+ * @param changedUsers ID, username and token version of each changed user
+ */
+public record BulkUpdateResult(int modified, List<UserDocument> changedUsers) {
+}
@@ -0,0 +1,13 @@
+package edu.belmont.demo.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * @param items Rows on this page
+ * @param nextCursor Opaque cursor for the following page, or null on the last page
+ * @param hasNext Whether another page follows
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasNext) {
+}
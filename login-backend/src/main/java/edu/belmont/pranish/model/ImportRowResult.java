@@ -0,0 +1,12 @@
+package edu.belmont.demo.model;
+
+/**
+ * Outcome of one input row of a user import that was not created.
+ *
+ * @param row 1-based data row number (CSV header excluded)
+ * @param username Username from the row, if any
+ * @param status "invalid", "duplicate" or "failed"
+ * @param message Reason the row was not imported
+ */
+public record ImportRowResult(int row, String username, String status, String message) {
+}
@@ -0,0 +1,16 @@
+package edu.belmont.demo.model;
+
+import lombok.Data;
+
+/**
+ * Body of the token refresh and logout requests.
+ */
+@Data
+public class RefreshRequest {
+
+    /**
+     * Refresh token returned by the last login or refresh
+     */
+    private String refreshToken;
+
+}
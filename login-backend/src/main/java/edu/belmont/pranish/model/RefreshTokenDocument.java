@@ -0,0 +1,27 @@
+package edu.belmont.demo.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Server-side record of one refresh token. Only a hash of the token is stored.
+ * Every token issued from the same login shares a family, so a reused token
+ * can revoke the whole chain.
+ *
+ * @param id SHA-256 hash of the token, base64url encoded
+ * @param username User the token was issued to
+ * @param familyId Identifier shared by all rotations of one login
+ * @param expiresAt When the token stops being accepted; expired documents are removed by a TTL index
+ * @param usedAt When the token was exchanged, or null while it is still unused
+ */
+@Document(collection = "refresh_tokens")
+public record RefreshTokenDocument(
+        @Id String id,
+        String username,
+        @Indexed String familyId,
+        @Indexed(expireAfter = "0s") Instant expiresAt,
+        Instant usedAt) {
+}
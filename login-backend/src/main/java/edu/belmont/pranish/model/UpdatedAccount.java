@@ -0,0 +1,10 @@
+package edu.belmont.demo.model;
+
+/**
+ * Outcome of a single account update.
+ *
+ * @param user The user as written by the update
+ * @param tokensRevoked Whether the update changed the role or active status and so revoked the user's tokens
+ */
+public record UpdatedAccount(UserDocument user, boolean tokensRevoked) {
+}
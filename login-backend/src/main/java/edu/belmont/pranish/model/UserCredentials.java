@@ -0,0 +1,14 @@
+package edu.belmont.demo.model;
+
+/**
+ * Projection of {@link UserDocument} holding only what the login path needs.
+ *
+ * @param id User document ID
+ * @param username Username
+ * @param passwordHash BCrypt hash of the user's password
+ * @param role User role
+ * @param isActive Whether the account may sign in
+ * @param tokenVersion Current token version, embedded in issued tokens
+ */
+public record UserCredentials(String id, String username, String passwordHash, String role, boolean isActive, int tokenVersion) {
+}
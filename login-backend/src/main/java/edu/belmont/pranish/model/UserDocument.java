@@ -3,23 +3,42 @@ package edu.belmont.demo.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
- * MongoDB document representing an application user.
+ * MongoDB document representing an application user. Every query in
+ * {@link edu.belmont.demo.repository.UserRepository} is served by one of the
+ * indexes declared here; {@link edu.belmont.demo.repository.QueryPlanChecker}
+ * keeps it that way.
  */
 @Document(collection = "users")
+@CompoundIndex(name = UserDocument.SUMMARY_INDEX, def = "{'username': 1, 'role': 1, 'isActive': 1, 'lastLoginAt': 1}")
 public class UserDocument {
 
+    /**
+     * Index holding every field of the user summary list and the dashboard
+     * counts, so both read index keys only instead of whole documents.
+     */
+    public static final String SUMMARY_INDEX = "summary";
+
     @Id
     private String id;
 
     @Indexed(unique = true)
     private String username;
 
+    // Search keys derived from username, see UsernameSearchKeys
+    @Indexed
+    private String usernameLower;
+
+    @Indexed
+    private List<String> usernameGrams;
+
     private String passwordHash;
 
     private String role;
@@ -28,6 +47,16 @@ public class UserDocument {
 
     private LocalDateTime lastLoginAt;
 
+    // Bumped when a role change or deactivation must invalidate existing tokens
+    private int tokenVersion;
+
+    // Sparse: only users whose tokens were ever revoked have it
+    @Indexed(sparse = true)
+    private LocalDateTime tokensRevokedAt;
+
+    // Unique per account update that revoked tokens, so the update can tell which users it revoked
+    private String revocationId;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -38,7 +67,7 @@ public class UserDocument {
     public UserDocument() {}
 
     public UserDocument(String username, String passwordHash, String role) {
-        this.username = username;
+        setUsername(username);
         this.passwordHash = passwordHash;
         this.role = role;
         this.isActive = true;
@@ -51,7 +80,18 @@ public class UserDocument {
     public void setId(String id) { this.id = id; }
 
     public String getUsername() { return username; }
-    public void setUsername(String username) { this.username = username; }
+    public void setUsername(String username) {
+        this.username = username;
+        refreshSearchKeys();
+    }
+
+    /**
+     * Recompute the lowercase and n-gram search keys from the current username.
+     */
+    public void refreshSearchKeys() {
+        this.usernameLower = UsernameSearchKeys.normalize(username);
+        this.usernameGrams = UsernameSearchKeys.grams(usernameLower);
+    }
 
     public String getPasswordHash() { return passwordHash; }
     public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
@@ -65,6 +105,15 @@ public class UserDocument {
     public LocalDateTime getLastLoginAt() { return lastLoginAt; }
     public void setLastLoginAt(LocalDateTime lastLoginAt) { this.lastLoginAt = lastLoginAt; }
 
+    public int getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(int tokenVersion) { this.tokenVersion = tokenVersion; }
+
+    public LocalDateTime getTokensRevokedAt() { return tokensRevokedAt; }
+    public void setTokensRevokedAt(LocalDateTime tokensRevokedAt) { this.tokensRevokedAt = tokensRevokedAt; }
+
+    public String getRevocationId() { return revocationId; }
+    public void setRevocationId(String revocationId) { this.revocationId = revocationId; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
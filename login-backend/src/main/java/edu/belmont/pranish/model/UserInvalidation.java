@@ -0,0 +1,38 @@
+package edu.belmont.demo.model;
+
+import java.time.Instant;
+
+/**
+ * Notice that a user's cached data is stale, shared between backend instances.
+ *
+ * @param username User whose cached entries must be dropped
+ * @param credentialsChanged Whether login-relevant fields (role, active state, token version) changed;
+ *                           if false only full-document caches are affected
+ * @param lastLoginOnly Whether only lastLoginAt changed, which does not advance the collection version
+ * @param tokenVersion New token version if existing tokens were revoked, otherwise null
+ * @param revokedAt When tokens were revoked, otherwise null
+ */
+public record UserInvalidation(String username, boolean credentialsChanged, boolean lastLoginOnly,
+                               Integer tokenVersion, Instant revokedAt) {
+
+    /**
+     * Only non-credential fields changed, or the user was created.
+     */
+    public static UserInvalidation documentOnly(String username) {
+        return new UserInvalidation(username, false, false, null, null);
+    }
+
+    /**
+     * Only the last-login time changed.
+     */
+    public static UserInvalidation lastLogin(String username) {
+        return new UserInvalidation(username, false, true, null, null);
+    }
+
+    /**
+     * Account fields changed, optionally revoking tokens below {@code tokenVersion}.
+     */
+    public static UserInvalidation account(String username, Integer tokenVersion, Instant revokedAt) {
+        return new UserInvalidation(username, true, false, tokenVersion, revokedAt);
+    }
+}
@@ -0,0 +1,13 @@
+package edu.belmont.demo.model;
+
+/**
+ * User counts shown on the admin dashboard.
+ *
+ * @param totalUsers All users
+ * @param activeUsers Users whose account is active
+ * @param adminUsers Users with the ADMIN role
+ * @param regularUsers Users with the USER role
+ * @param todayLogins Users who logged in since the start of today
+ */
+public record UserStats(long totalUsers, long activeUsers, long adminUsers, long regularUsers, long todayLogins) {
+}
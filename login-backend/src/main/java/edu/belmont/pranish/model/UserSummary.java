@@ -0,0 +1,10 @@
+package edu.belmont.demo.model;
+
+/**
+ * Slim read view of a user: just what the user list shows.
+ *
+ * @param username Username
+ * @param role User role
+ */
+public record UserSummary(String username, String role) {
+}
@@ -0,0 +1,15 @@
+package edu.belmont.demo.model;
+
+/**
+ * Requested change to one user's account fields. Null fields are left unchanged.
+ *
+ * @param id User ID
+ * @param role New role (USER or ADMIN)
+ * @param isActive New active status
+ */
+public record UserUpdate(String id, String role, Boolean isActive) {
+
+    public boolean isEmpty() {
+        return role == null && isActive == null;
+    }
+}
@@ -0,0 +1,57 @@
+package edu.belmont.demo.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Derives the indexed search keys stored on {@link UserDocument}: a lowercase
+ * copy of the username for anchored prefix matches, and its 2- and 3-character
+ * n-grams for substring matches through a multikey index.
+ */
+public final class UsernameSearchKeys {
+
+    public static final int MAX_GRAM = 3;
+
+    private UsernameSearchKeys() {}
+
+    public static String normalize(String username) {
+        return username == null ? null : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * All distinct 2- and 3-grams of a normalized username.
+     */
+    public static List<String> grams(String normalized) {
+        if (normalized == null) {
+            return List.of();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int length = 2; length <= MAX_GRAM; length++) {
+            for (int i = 0; i + length <= normalized.length(); i++) {
+                grams.add(normalized.substring(i, i + length));
+            }
+        }
+        return new ArrayList<>(grams);
+    }
+
+    /**
+     * The grams a username must contain to possibly include the given search
+     * text: its trigrams for longer text, or the text itself for two characters.
+     */
+    public static List<String> queryGrams(String normalized) {
+        if (normalized.length() < 2) {
+            return List.of();
+        }
+        if (normalized.length() == 2) {
+            return List.of(normalized);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + MAX_GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + MAX_GRAM));
+        }
+        return new ArrayList<>(grams);
+    }
+}
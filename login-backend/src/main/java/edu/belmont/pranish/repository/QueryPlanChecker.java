@@ -0,0 +1,252 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import edu.belmont.demo.model.UserDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypeBasedAggregationOperationContext;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.idQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.keysetQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.missingSearchKeysQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.pageQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.revokedAccountsQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.searchQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.statsAggregation;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.summaryQuery;
+
+/**
+ * Explains a query or aggregation of every shape the user repositories send
+ * and reports the ones whose winning plan reads the whole users collection:
+ * a collection scan, a scan of every _id without a limit, or an in-memory sort
+ * without a limit. Runs once the application is ready, after the declared
+ * indexes have been created; {@code auth.mongo.queryPlanCheck} is "warn" to
+ * log them, "fail" to stop startup (also when the queries cannot be
+ * explained), or "off".
+ * <p>
+ * QueryPlanCheckerTests fails when a repository method is neither planned nor
+ * listed in {@link #UNPLANNED}, checks offline that each planned query starts
+ * with an indexed field, and checks that each planned filter has the shape its
+ * method actually sends. QueryPlanCheckerLiveTests runs the check against a
+ * real server.
+ */
+@Component
+public class QueryPlanChecker {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanChecker.class);
+
+    private static final Set<String> MODES = Set.of("warn", "fail", "off");
+
+    private static final Set<String> WHOLE_RANGE = Set.of("[MinKey, MaxKey]", "[MaxKey, MinKey]");
+
+    /**
+     * Repository methods that send no query to plan, with the reason.
+     */
+    static final Map<String, String> UNPLANNED = Map.of("insertUsers", "inserts only");
+
+    /**
+     * A repository method and a query of the shape it sends.
+     */
+    record PlannedQuery(String method, Query query) {}
+
+    /**
+     * A repository method and the aggregation it runs.
+     */
+    record PlannedAggregation(String method, Aggregation aggregation) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final String mode;
+
+    public QueryPlanChecker(MongoTemplate mongoTemplate,
+                            @Value("${auth.mongo.queryPlanCheck:warn}") String mode) {
+        if (!MODES.contains(mode)) {
+            throw new IllegalArgumentException("auth.mongo.queryPlanCheck must be one of " + MODES + ", was " + mode);
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.mode = mode;
+    }
+
+    /**
+     * The derived and annotated queries are written out here; QueryPlanCheckerTests
+     * compares them with the commands those methods send. The rest come from
+     * the factories the implementations use.
+     */
+    static List<PlannedQuery> plannedQueries() {
+        String id = new ObjectId().toHexString();
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest page = PageRequest.of(2, 20);
+        return List.of(
+                new PlannedQuery("findByUsername", Query.query(Criteria.where("username").is("alice"))),
+                new PlannedQuery("findCredentialsByUsername", Query.query(Criteria.where("username").is("alice"))),
+                new PlannedQuery("findTokenRevocationsSince", Query.query(Criteria.where("tokensRevokedAt").gt(now))),
+                new PlannedQuery("findUsersAfter", keysetQuery(null, null, false, 21)),
+                new PlannedQuery("findUsersAfter", keysetQuery(id, "ali", true, 21)),
+                new PlannedQuery("countUsers", searchQuery("alice", false)),
+                new PlannedQuery("countUsers", searchQuery("a", false)),
+                new PlannedQuery("searchUsers", pageQuery(null, false, page)),
+                new PlannedQuery("searchUsers", pageQuery("alice", false, page)),
+                new PlannedQuery("searchUsers", pageQuery("al", true, page)),
+                new PlannedQuery("streamUserSummaries", summaryQuery()),
+                new PlannedQuery("findUserSummaries", summaryQuery()),
+                new PlannedQuery("updateAccount", idQuery(id)),
+                new PlannedQuery("bulkUpdateAccounts", idQuery(id)),
+                new PlannedQuery("bulkUpdateAccounts", revokedAccountsQuery(List.of(new ObjectId(id)), id)),
+                new PlannedQuery("bulkUpdateLastLogin", idQuery(id)),
+                new PlannedQuery("backfillUsernameSearchKeys", missingSearchKeysQuery()));
+    }
+
+    static List<PlannedAggregation> plannedAggregations() {
+        return List.of(new PlannedAggregation("aggregateUserStats", statsAggregation(LocalDateTime.now())));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkAtStartup() {
+        if (mode.equals("off")) {
+            return;
+        }
+        List<String> scans;
+        try {
+            scans = findFullScans();
+        } catch (RuntimeException e) {
+            if (mode.equals("fail")) {
+                throw new IllegalStateException("Query plan check failed, could not explain the user queries", e);
+            }
+            log.warn("Skipping the query plan check, could not explain the user queries: {}", e.getMessage());
+            return;
+        }
+        if (scans.isEmpty()) {
+            log.info("Query plan check: all {} user queries use an index",
+                    plannedQueries().size() + plannedAggregations().size());
+            return;
+        }
+        String message = "User queries that read the whole collection: " + String.join("; ", scans);
+        if (mode.equals("fail")) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    /**
+     * Explain every planned query and aggregation against the live collection.
+     *
+     * @return Method name, filter or pipeline, and {@link #planProblems} of each
+     *         one whose winning plan reads the whole collection
+     */
+    public List<String> findFullScans() {
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getPersistentEntity(UserDocument.class);
+        List<String> scans = new ArrayList<>();
+        for (PlannedQuery planned : plannedQueries()) {
+            Query query = planned.query();
+            Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+            Document explain = mongoTemplate.execute(UserDocument.class, collection -> {
+                FindIterable<Document> find = collection.find(filter)
+                        .projection(queryMapper.getMappedFields(query.getFieldsObject(), entity))
+                        .sort(queryMapper.getMappedSort(query.getSortObject(), entity))
+                        .skip((int) query.getSkip())
+                        .limit(query.getLimit());
+                if (query.getHint() != null) {
+                    find.hintString(query.getHint());
+                }
+                return find.explain(Document.class, ExplainVerbosity.QUERY_PLANNER);
+            });
+            List<String> problems = planProblems(explain);
+            if (!problems.isEmpty()) {
+                scans.add(planned.method() + " " + filter.toJson() + " " + problems);
+            }
+        }
+        TypeBasedAggregationOperationContext context = new TypeBasedAggregationOperationContext(UserDocument.class,
+                mongoTemplate.getConverter().getMappingContext(), queryMapper);
+        for (PlannedAggregation planned : plannedAggregations()) {
+            List<Document> pipeline = planned.aggregation().toPipeline(context);
+            Document explain = mongoTemplate.execute(UserDocument.class, collection -> {
+                AggregateIterable<Document> aggregate = collection.aggregate(pipeline);
+                planned.aggregation().getOptions().getHintObject()
+                        .ifPresent(hint -> aggregate.hintString((String) hint));
+                return aggregate.explain(Document.class, ExplainVerbosity.QUERY_PLANNER);
+            });
+            List<String> problems = planProblems(explain);
+            if (!problems.isEmpty()) {
+                scans.add(planned.method() + " " + pipeline.stream().map(Document::toJson).toList() + " " + problems);
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Stages of the winning plans in an explain result that read the whole
+     * collection: COLLSCAN, an _id IXSCAN over all keys, or a SORT without a
+     * limit, except below a LIMIT stage. Finds the plans of find and
+     * aggregate explains (where they sit under a $cursor stage) in either the
+     * classic or the slot-based (queryPlan) layout.
+     */
+    static List<String> planProblems(Document explain) {
+        List<String> problems = new ArrayList<>();
+        for (Document queryPlanner : queryPlanners(explain)) {
+            findProblems(queryPlanner.get("winningPlan"), false, problems);
+        }
+        return problems;
+    }
+
+    private static List<Document> queryPlanners(Object explain) {
+        List<Document> found = new ArrayList<>();
+        if (explain instanceof Document document) {
+            document.forEach((key, value) -> {
+                if (key.equals("queryPlanner") && value instanceof Document queryPlanner) {
+                    found.add(queryPlanner);
+                } else {
+                    found.addAll(queryPlanners(value));
+                }
+            });
+        } else if (explain instanceof List<?> values) {
+            values.forEach(value -> found.addAll(queryPlanners(value)));
+        }
+        return found;
+    }
+
+    private static void findProblems(Object plan, boolean limited, List<String> problems) {
+        if (plan instanceof Document stage) {
+            Object name = stage.get("stage");
+            if ("COLLSCAN".equals(name)) {
+                problems.add("COLLSCAN");
+            } else if ("IXSCAN".equals(name) && "_id_".equals(stage.get("indexName"))
+                    && !limited && coversEveryKey(stage.get("indexBounds", Document.class))) {
+                problems.add("IXSCAN of every _id");
+            } else if ("SORT".equals(name) && !limited && !stage.containsKey("limitAmount")) {
+                problems.add("SORT in memory");
+            }
+            boolean limitedBelow = limited || "LIMIT".equals(name);
+            stage.values().forEach(value -> findProblems(value, limitedBelow, problems));
+        } else if (plan instanceof List<?> stages) {
+            stages.forEach(value -> findProblems(value, limited, problems));
+        }
+    }
+
+    private static boolean coversEveryKey(Document indexBounds) {
+        return indexBounds != null && indexBounds.values().stream()
+                .allMatch(intervals -> intervals instanceof List<?> list
+                        && list.size() == 1 && WHOLE_RANGE.contains(list.get(0)));
+    }
+}
@@ -0,0 +1,18 @@
+package edu.belmont.demo.repository;
+
+import edu.belmont.demo.model.UserCredentials;
+import edu.belmont.demo.model.UserDocument;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link UserRepository}, used by the reactive web stack.
+ * Query shapes (projections, search keys, facets) are shared with the blocking repository.
+ */
+public interface ReactiveUserRepository extends ReactiveMongoRepository<UserDocument, String>, ReactiveUserRepositoryCustom {
+
+    // Login lookup: only the fields needed to authenticate and record the login
+    @Query(value = "{ 'username': ?0 }", fields = "{ 'username': 1, 'passwordHash': 1, 'role': 1, 'isActive': 1, 'tokenVersion': 1 }")
+    Mono<UserCredentials> findCredentialsByUsername(String username);
+}
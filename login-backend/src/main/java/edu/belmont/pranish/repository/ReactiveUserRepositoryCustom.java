@@ -0,0 +1,51 @@
+package edu.belmont.demo.repository;
+
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserStats;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.model.UpdatedAccount;
+import edu.belmont.demo.model.UserUpdate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reactive versions of the hand-written queries in {@link UserRepositoryCustom}.
+ */
+public interface ReactiveUserRepositoryCustom {
+
+    /**
+     * @see UserRepositoryCustom#aggregateUserStats(LocalDateTime)
+     */
+    Mono<UserStats> aggregateUserStats(LocalDateTime loginsSince);
+
+    /**
+     * @see UserRepositoryCustom#findUsersAfter(String, String, boolean, int)
+     */
+    Flux<UserDocument> findUsersAfter(String afterId, String usernameQuery, boolean prefixOnly, int limit);
+
+    /**
+     * @see UserRepositoryCustom#countUsers(String, boolean)
+     */
+    Mono<Long> countUsers(String usernameQuery, boolean prefixOnly);
+
+    /**
+     * @see UserRepositoryCustom#searchUsers(String, boolean, Pageable)
+     */
+    Mono<Page<UserDocument>> searchUsers(String usernameQuery, boolean prefixOnly, Pageable pageable);
+
+    /**
+     * Username and role of every user in username order, read from the summary index.
+     *
+     * @see UserRepositoryCustom#streamUserSummaries(int)
+     */
+    Flux<UserSummary> findUserSummaries();
+
+    /**
+     * @see UserRepositoryCustom#updateAccount(UserUpdate, LocalDateTime)
+     */
+    Mono<UpdatedAccount> updateAccount(UserUpdate update, LocalDateTime now);
+}
@@ -0,0 +1,158 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.reactivestreams.client.ClientSession;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserStats;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.model.UpdatedAccount;
+import edu.belmont.demo.model.UserUpdate;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.function.BiFunction;
+
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.accountUpdate;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.idQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.keysetQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.pageQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.searchQuery;
+import static edu.belmont.demo.repository.UserRepositoryCustomImpl.summaryQuery;
+
+/**
+ * ReactiveMongoTemplate-backed implementation of {@link ReactiveUserRepositoryCustom},
+ * routed and fenced like {@link UserRepositoryCustomImpl}.
+ */
+class ReactiveUserRepositoryCustomImpl implements ReactiveUserRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final SecondaryReads secondaryReads;
+    private final ReplicationFence replicationFence;
+    private final QueryMapper queryMapper;
+
+    ReactiveUserRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate, SecondaryReads secondaryReads,
+                                     ReplicationFence replicationFence) {
+        this.mongoTemplate = mongoTemplate;
+        this.secondaryReads = secondaryReads;
+        this.replicationFence = replicationFence;
+        this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    }
+
+    @Override
+    public Mono<UserStats> aggregateUserStats(LocalDateTime loginsSince) {
+        Aggregation aggregation = secondaryReads.route(UserRepositoryCustomImpl.statsAggregation(loginsSince));
+        return afterLatestChange((template, session) -> template.aggregate(aggregation, UserDocument.class, Document.class))
+                .next()
+                .map(UserRepositoryCustomImpl::toUserStats)
+                .defaultIfEmpty(UserRepositoryCustomImpl.toUserStats(null));
+    }
+
+    @Override
+    public Flux<UserDocument> findUsersAfter(String afterId, String usernameQuery, boolean prefixOnly, int limit) {
+        Query query = secondaryReads.route(keysetQuery(afterId, usernameQuery, prefixOnly, limit));
+        return afterLatestChange((template, session) -> template.find(query, UserDocument.class));
+    }
+
+    @Override
+    public Mono<Long> countUsers(String usernameQuery, boolean prefixOnly) {
+        Query query = searchQuery(usernameQuery, prefixOnly);
+        return afterLatestChange((template, session) -> count(session, query)).next();
+    }
+
+    @Override
+    public Mono<Page<UserDocument>> searchUsers(String usernameQuery, boolean prefixOnly, Pageable pageable) {
+        Query query = secondaryReads.route(pageQuery(usernameQuery, prefixOnly, pageable));
+        // The page and its total share a session, so both are read after the same change
+        return afterLatestChange((template, session) -> searchUsers(template, query,
+                count(session, searchQuery(usernameQuery, prefixOnly)), pageable)).next();
+    }
+
+    private static Mono<Page<UserDocument>> searchUsers(ReactiveMongoOperations template, Query query,
+                                                        Mono<Long> total, Pageable pageable) {
+        return template.find(query, UserDocument.class).collectList()
+                .flatMap(users -> {
+                    if (pageable.isUnpaged()) {
+                        return Mono.just(new PageImpl<>(users));
+                    }
+                    // Same shortcut as PageableExecutionUtils: a partial page already tells the total
+                    boolean lastPage = users.size() < pageable.getPageSize()
+                            && (pageable.getOffset() == 0 || !users.isEmpty());
+                    return lastPage
+                            ? Mono.just(new PageImpl<>(users, pageable, pageable.getOffset() + users.size()))
+                            : total.map(count -> new PageImpl<>(users, pageable, count));
+                });
+    }
+
+    /**
+     * Reactive variant of {@link UserRepositoryCustomImpl}'s read after the
+     * {@link ReplicationFence}; the session is closed once the read completes.
+     */
+    private <T> Flux<T> afterLatestChange(BiFunction<ReactiveMongoOperations, ClientSession, Publisher<T>> read) {
+        Document probe = ReplicationFence.probe(mongoTemplate.getCollectionName(UserDocument.class));
+        return replicationFence.current(mongoTemplate.executeCommand(probe))
+                .flatMapMany(point -> point.isEmpty()
+                        ? read.apply(mongoTemplate, null)
+                        : Flux.usingWhen(
+                                mongoTemplate.getMongoDatabaseFactory().getSession(ReplicationFence.CAUSALLY_CONSISTENT),
+                                session -> {
+                                    point.get().applyTo(session);
+                                    return read.apply(mongoTemplate.withSession(session), session);
+                                },
+                                session -> Mono.fromRunnable(session::close)));
+    }
+
+    // ReactiveMongoTemplate.count ignores the query's read preference, so count on a collection that carries it
+    private Mono<Long> count(ClientSession session, Query query) {
+        ReadPreference readPreference = secondaryReads.readPreference();
+        String collectionName = mongoTemplate.getCollectionName(UserDocument.class);
+        if (query.getQueryObject().isEmpty()) {
+            // Counting everyone is answered from collection metadata instead of a scan
+            if (session == null) {
+                return mongoTemplate.getCollection(collectionName)
+                        .flatMap(collection -> Mono.from(collection.withReadPreference(readPreference)
+                                .estimatedDocumentCount()));
+            }
+            // estimatedDocumentCount takes no session, so send its count command with the session's read concern
+            Document count = new Document("count", collectionName)
+                    .append("readConcern", ReplicationFence.readConcern(session));
+            return mongoTemplate.getMongoDatabase()
+                    .flatMap(database -> Mono.from(database.runCommand(session, count, readPreference)))
+                    .map(reply -> reply.get("n", Number.class).longValue());
+        }
+        Document filter = queryMapper.getMappedObject(query.getQueryObject(),
+                mongoTemplate.getConverter().getMappingContext().getPersistentEntity(UserDocument.class));
+        return mongoTemplate.getCollection(collectionName)
+                .flatMap(collection -> {
+                    MongoCollection<Document> routed = collection.withReadPreference(readPreference);
+                    return Mono.from(session == null ? routed.countDocuments(filter) : routed.countDocuments(session, filter));
+                });
+    }
+
+    @Override
+    public Flux<UserSummary> findUserSummaries() {
+        Query query = secondaryReads.route(summaryQuery());
+        return mongoTemplate.find(query, UserSummary.class, mongoTemplate.getCollectionName(UserDocument.class));
+    }
+
+    @Override
+    public Mono<UpdatedAccount> updateAccount(UserUpdate update, LocalDateTime now) {
+        String revocationId = new ObjectId().toHexString();
+        return mongoTemplate.findAndModify(idQuery(update.id()), accountUpdate(update, now, revocationId),
+                        FindAndModifyOptions.options().returnNew(true), UserDocument.class)
+                .map(updated -> new UpdatedAccount(updated, revocationId.equals(updated.getRevocationId())));
+    }
+}
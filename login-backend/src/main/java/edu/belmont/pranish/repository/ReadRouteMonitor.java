@@ -0,0 +1,83 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ServerType;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.ServerDescriptionChangedEvent;
+import com.mongodb.event.ServerListener;
+import org.bson.BsonDocument;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts read commands by the route they asked for and the kind of server
+ * that ran them, so the metrics show whether reads meant for secondaries land
+ * there. Registered with both the blocking and the reactive Mongo client.
+ * <p>
+ * The route comes from the {@code $readPreference} the driver attaches to the
+ * command: "secondary" for any mode that allows secondaries, otherwise
+ * "primary" (including primaryPreferred, which the driver sends for primary
+ * reads over a direct connection, and commands without one).
+ */
+public class ReadRouteMonitor implements CommandListener, ServerListener {
+
+    public static final String[] ROUTES = {"primary", "secondary"};
+    public static final String[] SERVERS = {"primary", "secondary", "standalone", "other"};
+
+    private static final Set<String> READ_COMMANDS = Set.of("find", "aggregate", "count", "distinct");
+
+    private final Map<ServerAddress, ServerType> serverTypes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> reads = new ConcurrentHashMap<>();
+
+    @Override
+    public void serverDescriptionChanged(ServerDescriptionChangedEvent event) {
+        serverTypes.put(event.getServerId().getAddress(), event.getNewDescription().getType());
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!READ_COMMANDS.contains(event.getCommandName())) {
+            return;
+        }
+        ServerType serverType = serverTypes.getOrDefault(event.getConnectionDescription().getServerAddress(),
+                event.getConnectionDescription().getServerType());
+        reads.computeIfAbsent(key(route(event.getCommand()), server(serverType)), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Reads started so far with the given route on the given kind of server.
+     *
+     * @param route One of {@link #ROUTES}
+     * @param server One of {@link #SERVERS}
+     */
+    public long getReadCount(String route, String server) {
+        LongAdder count = reads.get(key(route, server));
+        return count == null ? 0 : count.sum();
+    }
+
+    static String route(BsonDocument command) {
+        BsonDocument readPreference = command.getDocument("$readPreference", null);
+        if (readPreference == null) {
+            return "primary";
+        }
+        String mode = readPreference.getString("mode").getValue();
+        return mode.equals("primary") || mode.equals("primaryPreferred") ? "primary" : "secondary";
+    }
+
+    static String server(ServerType type) {
+        return switch (type) {
+            case REPLICA_SET_PRIMARY -> "primary";
+            case REPLICA_SET_SECONDARY -> "secondary";
+            case STANDALONE -> "standalone";
+            default -> "other";
+        };
+    }
+
+    private static String key(String route, String server) {
+        return route + '|' + server;
+    }
+}
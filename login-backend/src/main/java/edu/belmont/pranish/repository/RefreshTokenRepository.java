@@ -0,0 +1,9 @@
+package edu.belmont.demo.repository;
+
+import edu.belmont.demo.model.RefreshTokenDocument;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RefreshTokenRepository extends MongoRepository<RefreshTokenDocument, String>, RefreshTokenRepositoryCustom {
+
+    long deleteByFamilyId(String familyId);
+}
@@ -0,0 +1,21 @@
+package edu.belmont.demo.repository;
+
+import edu.belmont.demo.model.RefreshTokenDocument;
+
+import java.time.Instant;
+
+/**
+ * Hand-written refresh token queries.
+ */
+public interface RefreshTokenRepositoryCustom {
+
+    /**
+     * Mark an unused, unexpired token as used in one findAndModify, so two
+     * concurrent refreshes with the same token cannot both succeed.
+     *
+     * @param id Token hash
+     * @param now Current time
+     * @return The token as it was before being claimed, or null if it is unknown, expired or already used
+     */
+    RefreshTokenDocument claim(String id, Instant now);
+}
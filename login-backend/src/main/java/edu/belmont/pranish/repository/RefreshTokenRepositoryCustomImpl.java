@@ -0,0 +1,29 @@
+package edu.belmont.demo.repository;
+
+import edu.belmont.demo.model.RefreshTokenDocument;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+/**
+ * MongoTemplate-backed implementation of {@link RefreshTokenRepositoryCustom}.
+ */
+class RefreshTokenRepositoryCustomImpl implements RefreshTokenRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    RefreshTokenRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public RefreshTokenDocument claim(String id, Instant now) {
+        Query query = Query.query(Criteria.where("id").is(id)
+                .and("usedAt").is(null)
+                .and("expiresAt").gt(now));
+        return mongoTemplate.findAndModify(query, Update.update("usedAt", now), RefreshTokenDocument.class);
+    }
+}
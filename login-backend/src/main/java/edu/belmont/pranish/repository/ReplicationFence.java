@@ -0,0 +1,116 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.session.ClientSession;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Cluster time of the latest change to the users collection this instance
+ * knows of. Reads whose results are tagged with the UserCollectionVersion
+ * (admin listings, searches, counts and stats) still go to a secondary, but
+ * in a causally consistent session that starts from this time: the secondary
+ * answers only once it has replicated the change, so an ETag or cached stats
+ * never describe data older than the version they carry.
+ * <p>
+ * UserCollectionVersion calls {@link #changed()} before it advances. The next
+ * versioned read then asks the primary for its operationTime, which is at
+ * least that of the write: local writes advance the version after they
+ * return, and writes on other instances after their invalidation event has
+ * been read from the primary. A standalone server reports no operationTime,
+ * and reads there run without a session.
+ */
+@Component
+public class ReplicationFence {
+
+    static final ClientSessionOptions CAUSALLY_CONSISTENT = ClientSessionOptions.builder()
+            .causallyConsistent(true)
+            .build();
+
+    /**
+     * Primary's operationTime and signed cluster time, as of a number of changes.
+     */
+    record Point(long changes, BsonTimestamp operationTime, BsonDocument clusterTime) {
+
+        /**
+         * Make reads in the session wait for this point ({@code afterClusterTime}).
+         */
+        void applyTo(ClientSession session) {
+            if (clusterTime != null) {
+                session.advanceClusterTime(clusterTime);
+            }
+            session.advanceOperationTime(operationTime);
+        }
+    }
+
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicReference<Point> latest = new AtomicReference<>(new Point(-1, null, null));
+
+    /**
+     * Record that the users collection changed; the next read fetches a new point.
+     */
+    public void changed() {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Point that covers every change recorded so far.
+     *
+     * @param probe Runs {@link #probe(String)} on the primary and returns the reply
+     * @return Empty when the server has no cluster time (standalone)
+     */
+    Optional<Point> current(Supplier<Document> probe) {
+        long seen = changes.get();
+        Point point = latest.get();
+        if (point.changes() < seen) {
+            point = store(seen, probe.get());
+        }
+        return Optional.ofNullable(point.operationTime() != null ? point : null);
+    }
+
+    /**
+     * Reactive variant of {@link #current(Supplier)}.
+     */
+    Mono<Optional<Point>> current(Mono<Document> probe) {
+        return Mono.defer(() -> {
+            long seen = changes.get();
+            Point point = latest.get();
+            Mono<Point> current = point.changes() < seen ? probe.map(reply -> store(seen, reply)) : Mono.just(point);
+            return current.map(p -> Optional.ofNullable(p.operationTime() != null ? p : null));
+        });
+    }
+
+    /**
+     * A read on the primary that matches nothing, for its operationTime.
+     */
+    static Document probe(String collection) {
+        return new Document("find", collection)
+                .append("filter", new Document("_id", null))
+                .append("limit", 1)
+                .append("singleBatch", true);
+    }
+
+    /**
+     * Read concern a causally consistent session sends, for commands the driver
+     * does not add it to.
+     */
+    static Document readConcern(ClientSession session) {
+        return new Document("level", "local").append("afterClusterTime", session.getOperationTime());
+    }
+
+    private Point store(long seen, Document reply) {
+        Document clusterTime = reply.get("$clusterTime", Document.class);
+        Point point = new Point(seen, reply.get("operationTime", BsonTimestamp.class),
+                clusterTime != null ? clusterTime.toBsonDocument() : null);
+        latest.accumulateAndGet(point, (stored, fetched) -> fetched.changes() > stored.changes() ? fetched : stored);
+        return point;
+    }
+}
@@ -0,0 +1,77 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ReadPreference;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read preference for the queries that can tolerate replication lag: admin
+ * listings, searches and counts, dashboard stats and the user summary list.
+ * On a replica set these go to a secondary whose estimated lag is within
+ * maxStalenessSeconds, falling back to the primary when none is; on a
+ * standalone server the preference is ignored. All but the summary list are
+ * tagged with UserCollectionVersion and also wait for the {@link ReplicationFence}.
+ * <p>
+ * Everything else (login and credential lookups, token state, and all writes
+ * and the reads that follow them) keeps the template default, the primary.
+ */
+@Component
+public class SecondaryReads {
+
+    /** Smallest maxStaleness MongoDB accepts. */
+    static final long MIN_MAX_STALENESS_SECONDS = 90;
+
+    private final ReadPreference readPreference;
+    private final long maxStalenessSeconds;
+
+    public SecondaryReads(@Value("${auth.mongo.secondaryReads.enabled:true}") boolean enabled,
+                          @Value("${auth.mongo.secondaryReads.maxStalenessSeconds:90}") long maxStalenessSeconds) {
+        if (maxStalenessSeconds < MIN_MAX_STALENESS_SECONDS) {
+            throw new IllegalArgumentException("auth.mongo.secondaryReads.maxStalenessSeconds must be at least "
+                    + MIN_MAX_STALENESS_SECONDS);
+        }
+        this.readPreference = enabled
+                ? ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS)
+                : ReadPreference.primary();
+        this.maxStalenessSeconds = enabled ? maxStalenessSeconds : 0;
+    }
+
+    public ReadPreference readPreference() {
+        return readPreference;
+    }
+
+    /**
+     * Replication lag accepted for routed reads, or 0 when they stay on the primary.
+     */
+    public long getMaxStalenessSeconds() {
+        return maxStalenessSeconds;
+    }
+
+    /**
+     * Route a query to a secondary.
+     */
+    Query route(Query query) {
+        return query.withReadPreference(readPreference);
+    }
+
+    /**
+     * Route an aggregation to a secondary, keeping its index hint.
+     */
+    Aggregation route(Aggregation aggregation) {
+        AggregationOptions.Builder options = AggregationOptions.builder().readPreference(readPreference);
+        aggregation.getOptions().getHintObject().ifPresent(hint -> {
+            if (hint instanceof String indexName) {
+                options.hint(indexName);
+            } else {
+                options.hint((Document) hint);
+            }
+        });
+        return aggregation.withOptions(options.build());
+    }
+}
@@ -0,0 +1,253 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import edu.belmont.demo.model.UserInvalidation;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts user cache invalidations between backend instances through a
+ * small capped collection. Each instance appends events and follows the
+ * collection with a tailable cursor, which works against a standalone local
+ * MongoDB (unlike change streams, which need a replica set).
+ * <p>
+ * Events are inserted without an {@code _id} so the server assigns one: the
+ * ids then follow insertion order, and a reopened cursor resumes after the
+ * last id it handled without comparing clocks of different instances.
+ */
+@Component
+public class UserInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(UserInvalidationBus.class);
+
+    static final String COLLECTION = "user_invalidations";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final long cappedSizeBytes;
+    private final long retryDelayMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<List<UserInvalidation>>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile long lastLagMillis;
+    private Thread tailer;
+    private ObjectId lastSeenId;
+
+    public UserInvalidationBus(
+            MongoTemplate mongoTemplate,
+            @Value("${auth.userCache.broadcast.enabled:true}") boolean enabled,
+            @Value("${auth.userCache.broadcast.cappedSizeBytes:1048576}") long cappedSizeBytes,
+            @Value("${auth.userCache.broadcast.retryDelayMs:1000}") long retryDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.cappedSizeBytes = cappedSizeBytes;
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    /**
+     * Register a handler for invalidations published by other instances.
+     */
+    public void subscribe(Consumer<List<UserInvalidation>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Tell other instances to drop their cached entries for these users.
+     * Failures are logged; the cache TTL bounds staleness if a broadcast is lost.
+     */
+    public void publish(List<UserInvalidation> invalidations) {
+        if (!enabled || invalidations.isEmpty()) {
+            return;
+        }
+        List<Document> users = new ArrayList<>(invalidations.size());
+        for (UserInvalidation invalidation : invalidations) {
+            Document user = new Document("u", invalidation.username()).append("c", invalidation.credentialsChanged());
+            if (invalidation.lastLoginOnly()) {
+                user.append("l", true);
+            }
+            if (invalidation.tokenVersion() != null) {
+                user.append("tv", invalidation.tokenVersion()).append("ra", Date.from(invalidation.revokedAt()));
+            }
+            users.add(user);
+        }
+        try {
+            insert(new Document("node", nodeId).append("at", new Date()).append("users", users));
+            published.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Failed to broadcast invalidation for {} users", invalidations.size(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        tailer = new Thread(this::tail, "user-invalidation-tailer");
+        tailer.setDaemon(true);
+        tailer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (tailer != null) {
+            tailer.interrupt();
+            tailer.join(TimeUnit.SECONDS.toMillis(2));
+        }
+    }
+
+    private void tail() {
+        while (running) {
+            try {
+                ensureCollection();
+                if (lastSeenId == null) {
+                    // Only events published after this instance started are of interest
+                    lastSeenId = latestId();
+                }
+                // Include the last handled event, so the cursor has a match and is not closed straight away
+                try (MongoCursor<Document> cursor = collection().find(Filters.gte("_id", lastSeenId))
+                        .cursorType(CursorType.TailableAwait)
+                        .maxAwaitTime(1, TimeUnit.SECONDS)
+                        .iterator()) {
+                    while (running) {
+                        Document event = cursor.tryNext();
+                        if (event == null) {
+                            continue;
+                        }
+                        ObjectId id = event.getObjectId("_id");
+                        if (id.compareTo(lastSeenId) <= 0) {
+                            continue;
+                        }
+                        lastSeenId = id;
+                        if (!nodeId.equals(event.getString("node"))) {
+                            deliver(event);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (running) {
+                    log.debug("Invalidation tailer interrupted, reconnecting", e);
+                    sleepQuietly();
+                }
+            }
+        }
+    }
+
+    private void deliver(Document event) {
+        List<UserInvalidation> invalidations = new ArrayList<>();
+        for (Document user : event.getList("users", Document.class)) {
+            Date revokedAt = user.getDate("ra");
+            invalidations.add(new UserInvalidation(
+                    user.getString("u"),
+                    Boolean.TRUE.equals(user.getBoolean("c")),
+                    Boolean.TRUE.equals(user.getBoolean("l")),
+                    user.getInteger("tv"),
+                    revokedAt != null ? revokedAt.toInstant() : null));
+        }
+        for (Consumer<List<UserInvalidation>> listener : listeners) {
+            try {
+                listener.accept(invalidations);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation listener failed", e);
+            }
+        }
+        // Measured once the listeners have evicted, against the publisher's clock
+        long lag = Math.max(0, System.currentTimeMillis() - event.getDate("at").getTime());
+        received.incrementAndGet();
+        totalLagMillis.addAndGet(lag);
+        lastLagMillis = lag;
+    }
+
+    private void ensureCollection() {
+        if (!mongoTemplate.collectionExists(COLLECTION)) {
+            try {
+                mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(cappedSizeBytes));
+            } catch (RuntimeException e) {
+                // Another instance created it first
+            }
+        }
+        // A tailable cursor on an empty capped collection is closed immediately
+        if (collection().estimatedDocumentCount() == 0) {
+            insert(new Document("node", nodeId).append("at", new Date(0)).append("users", List.of()));
+        }
+    }
+
+    /**
+     * Insert through the insert command rather than insertOne, which would
+     * generate the {@code _id} (and its timestamp) on this instance.
+     */
+    private void insert(Document event) {
+        mongoTemplate.executeCommand(new Document("insert", COLLECTION).append("documents", List.of(event)));
+    }
+
+    private ObjectId latestId() {
+        Document latest = collection().find()
+                .sort(new Document("$natural", -1))
+                .limit(1)
+                .first();
+        return latest != null ? latest.getObjectId("_id") : new ObjectId(new Date(0), 0);
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * Sum over received events of the delay between publishing and applying them here.
+     */
+    public long getTotalLagMillis() {
+        return totalLagMillis.get();
+    }
+
+    /**
+     * Delay between publishing the most recently received event and applying it
+     * here, or 0 before any has arrived.
+     */
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+}
@@ -1,21 +1,22 @@
 package edu.belmont.demo.repository;
 
+import edu.belmont.demo.model.UserCredentials;
 import edu.belmont.demo.model.UserDocument;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends MongoRepository<UserDocument, String> {
+public interface UserRepository extends MongoRepository<UserDocument, String>, UserRepositoryCustom {
     Optional<UserDocument> findByUsername(String username);
-    
-    // Search methods
-    Page<UserDocument> findByUsernameContainingIgnoreCase(String username, Pageable pageable);
-    
-    // Count methods for statistics
-    long countByIsActive(boolean isActive);
-    long countByRole(String role);
-    long countByLastLoginAtAfter(LocalDateTime dateTime);
+
+    // Login lookup: only the fields needed to authenticate and record the login
+    @Query(value = "{ 'username': ?0 }", fields = "{ 'username': 1, 'passwordHash': 1, 'role': 1, 'isActive': 1, 'tokenVersion': 1 }")
+    Optional<UserCredentials> findCredentialsByUsername(String username);
+
+    // Users whose tokens were revoked recently, loaded into TokenVersionRegistry at startup and periodically
+    @Query(value = "{ 'tokensRevokedAt': { '$gt': ?0 } }", fields = "{ 'username': 1, 'tokenVersion': 1, 'tokensRevokedAt': 1 }")
+    List<UserDocument> findTokenRevocationsSince(LocalDateTime since);
 }
@@ -0,0 +1,125 @@
+package edu.belmont.demo.repository;
+
+import edu.belmont.demo.model.BulkUpdateResult;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserStats;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.model.UpdatedAccount;
+import edu.belmont.demo.model.UserUpdate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Hand-written queries that Spring Data cannot derive from method names.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Set lastLoginAt/updatedAt for many users in one unordered bulk write.
+     *
+     * @param lastLoginById Latest login time per user ID
+     * @return Number of documents matched
+     */
+    int bulkUpdateLastLogin(Map<String, LocalDateTime> lastLoginById);
+
+    /**
+     * Compute all dashboard counts in a single $facet aggregation over the
+     * summary index, without reading the documents.
+     *
+     * @param loginsSince Lower bound (exclusive) for counting recent logins
+     * @return Aggregated user statistics
+     */
+    UserStats aggregateUserStats(LocalDateTime loginsSince);
+
+    /**
+     * Keyset page of users ordered by _id, starting after the given ID.
+     *
+     * @param afterId Exclusive lower bound on _id, or null for the first page
+     * @param usernameQuery Optional username search text
+     * @param prefixOnly Match only usernames starting with the text
+     * @param limit Maximum number of rows to return
+     * @return Users in _id order
+     */
+    List<UserDocument> findUsersAfter(String afterId, String usernameQuery, boolean prefixOnly, int limit);
+
+    /**
+     * Count users matching the same search as {@link #findUsersAfter}.
+     *
+     * @param usernameQuery Optional username search text
+     * @param prefixOnly Match only usernames starting with the text
+     * @return Number of matching users
+     */
+    long countUsers(String usernameQuery, boolean prefixOnly);
+
+    /**
+     * Case-insensitive username search served by the usernameLower and
+     * usernameGrams indexes.
+     *
+     * @param usernameQuery Search text
+     * @param prefixOnly Match only usernames starting with the text
+     * @param pageable Pagination parameters
+     * @return Page of matching users
+     */
+    Page<UserDocument> searchUsers(String usernameQuery, boolean prefixOnly, Pageable pageable);
+
+    /**
+     * Populate usernameLower/usernameGrams on documents written before they existed.
+     *
+     * @return Number of documents updated
+     */
+    int backfillUsernameSearchKeys();
+
+    /**
+     * Stream username/role for every user in username order, from a cursor
+     * covered by the summary index. The caller must close the stream.
+     *
+     * @param batchSize Cursor batch size
+     * @return Lazily fetched user summaries
+     */
+    Stream<UserSummary> streamUserSummaries(int batchSize);
+
+    /**
+     * Atomically apply a role/status change with one findAndModify. If the
+     * change alters the role or active status, tokenVersion is incremented and
+     * tokensRevokedAt set in the same pipeline update; updatedAt is always set.
+     *
+     * @param update Fields to change
+     * @param now Timestamp for updatedAt/tokensRevokedAt
+     * @return The updated document and whether its tokens were revoked, or null if no user has that ID
+     */
+    UpdatedAccount updateAccount(UserUpdate update, LocalDateTime now);
+
+    /**
+     * Apply many role/status changes as one unordered bulk write of the same
+     * pipeline updates as {@link #updateAccount}. The revoked accounts are
+     * read back by the revocation ID the bulk stamped on them.
+     *
+     * @param updates Changes keyed by user ID
+     * @param now Timestamp for updatedAt/tokensRevokedAt
+     * @return Number of changed users and their new token versions
+     */
+    BulkUpdateResult bulkUpdateAccounts(List<UserUpdate> updates, LocalDateTime now);
+
+    /**
+     * A document rejected by {@link #insertUsers(List)}.
+     *
+     * @param index Position of the document in the inserted list
+     * @param duplicateKey Whether the username already exists
+     * @param message Server error message
+     */
+    record InsertFailure(int index, boolean duplicateKey, String message) {}
+
+    /**
+     * Insert new users with one unordered bulk insert; a rejected document
+     * (for example a duplicate username) does not stop the others.
+     *
+     * @param users Users to insert
+     * @return Documents that were not inserted
+     */
+    List<InsertFailure> insertUsers(List<UserDocument> users);
+}
@@ -0,0 +1,331 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.client.ClientSession;
+import edu.belmont.demo.model.BulkUpdateResult;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserStats;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.model.UpdatedAccount;
+import edu.belmont.demo.model.UserUpdate;
+import edu.belmont.demo.model.UsernameSearchKeys;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * MongoTemplate-backed implementation of {@link UserRepositoryCustom}.
+ * Listing, search, count and stats queries are routed through {@link SecondaryReads};
+ * the versioned ones (all but the user summary list) also wait for the {@link ReplicationFence}.
+ */
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+    private static final int DUPLICATE_KEY = 11000;
+
+    // Offset and keyset pages walk the _id index rather than the collection
+    static final Sort ID_ORDER = Sort.by(Sort.Direction.ASC, "id");
+
+    private final MongoTemplate mongoTemplate;
+    private final SecondaryReads secondaryReads;
+    private final ReplicationFence replicationFence;
+
+    UserRepositoryCustomImpl(MongoTemplate mongoTemplate, SecondaryReads secondaryReads,
+                             ReplicationFence replicationFence) {
+        this.mongoTemplate = mongoTemplate;
+        this.secondaryReads = secondaryReads;
+        this.replicationFence = replicationFence;
+    }
+
+    @Override
+    public int bulkUpdateLastLogin(Map<String, LocalDateTime> lastLoginById) {
+        if (lastLoginById.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserDocument.class);
+        lastLoginById.forEach((id, lastLoginAt) -> bulk.updateOne(
+                idQuery(id),
+                new Update().set("lastLoginAt", lastLoginAt).set("updatedAt", lastLoginAt)));
+        return bulk.execute().getMatchedCount();
+    }
+
+    @Override
+    public UserStats aggregateUserStats(LocalDateTime loginsSince) {
+        Aggregation aggregation = secondaryReads.route(statsAggregation(loginsSince));
+        return afterLatestChange((template, session) -> toUserStats(
+                template.aggregate(aggregation, UserDocument.class, Document.class).getUniqueMappedResult()));
+    }
+
+    // Every facet reads only fields of the summary index, so the hinted scan never fetches a document
+    static Aggregation statsAggregation(LocalDateTime loginsSince) {
+        return Aggregation.newAggregation(
+                Aggregation.facet(Aggregation.count().as("n")).as("total")
+                        .and(Aggregation.match(Criteria.where("isActive").is(true)),
+                                Aggregation.count().as("n")).as("active")
+                        .and(Aggregation.match(Criteria.where("role").is("ADMIN")),
+                                Aggregation.count().as("n")).as("admin")
+                        .and(Aggregation.match(Criteria.where("role").is("USER")),
+                                Aggregation.count().as("n")).as("regular")
+                        .and(Aggregation.match(Criteria.where("lastLoginAt").gt(loginsSince)),
+                                Aggregation.count().as("n")).as("recentLogins"))
+                .withOptions(AggregationOptions.builder().hint(UserDocument.SUMMARY_INDEX).build());
+    }
+
+    static UserStats toUserStats(Document result) {
+        if (result == null) {
+            return new UserStats(0, 0, 0, 0, 0);
+        }
+        return new UserStats(
+                facetCount(result, "total"),
+                facetCount(result, "active"),
+                facetCount(result, "admin"),
+                facetCount(result, "regular"),
+                facetCount(result, "recentLogins"));
+    }
+
+    @Override
+    public List<UserDocument> findUsersAfter(String afterId, String usernameQuery, boolean prefixOnly, int limit) {
+        Query query = secondaryReads.route(keysetQuery(afterId, usernameQuery, prefixOnly, limit));
+        return afterLatestChange((template, session) -> template.find(query, UserDocument.class));
+    }
+
+    @Override
+    public long countUsers(String usernameQuery, boolean prefixOnly) {
+        Query query = searchQuery(usernameQuery, prefixOnly);
+        return afterLatestChange((template, session) -> count(template, session, query));
+    }
+
+    @Override
+    public Page<UserDocument> searchUsers(String usernameQuery, boolean prefixOnly, Pageable pageable) {
+        Query query = secondaryReads.route(pageQuery(usernameQuery, prefixOnly, pageable));
+        // The page and its total share a session, so both are read after the same change
+        return afterLatestChange((template, session) -> PageableExecutionUtils.getPage(
+                template.find(query, UserDocument.class), pageable,
+                () -> count(template, session, searchQuery(usernameQuery, prefixOnly))));
+    }
+
+    /**
+     * Run a read whose result is tagged with the collection version in a
+     * causally consistent session starting at the {@link ReplicationFence},
+     * or without a session on a standalone server.
+     */
+    private <T> T afterLatestChange(BiFunction<MongoTemplate, ClientSession, T> read) {
+        Optional<ReplicationFence.Point> point = replicationFence.current(() -> mongoTemplate.executeCommand(
+                ReplicationFence.probe(mongoTemplate.getCollectionName(UserDocument.class))));
+        if (point.isEmpty()) {
+            return read.apply(mongoTemplate, null);
+        }
+        try (ClientSession session = mongoTemplate.getMongoDatabaseFactory()
+                .getSession(ReplicationFence.CAUSALLY_CONSISTENT)) {
+            point.get().applyTo(session);
+            return read.apply(mongoTemplate.withSession(session), session);
+        }
+    }
+
+    private long count(MongoTemplate template, ClientSession session, Query query) {
+        if (!query.getQueryObject().isEmpty()) {
+            return template.count(secondaryReads.route(query), UserDocument.class);
+        }
+        // Counting everyone is answered from collection metadata instead of a scan
+        String collection = mongoTemplate.getCollectionName(UserDocument.class);
+        if (session == null) {
+            return mongoTemplate.getCollection(collection)
+                    .withReadPreference(secondaryReads.readPreference())
+                    .estimatedDocumentCount();
+        }
+        // estimatedDocumentCount takes no session, so send its count command with the session's read concern
+        Document count = new Document("count", collection)
+                .append("readConcern", ReplicationFence.readConcern(session));
+        return mongoTemplate.getDb().runCommand(session, count, secondaryReads.readPreference())
+                .get("n", Number.class).longValue();
+    }
+
+    @Override
+    public int backfillUsernameSearchKeys() {
+        Query missing = missingSearchKeysQuery();
+        missing.fields().include("username");
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserDocument.class);
+        int pending = 0;
+        int updated = 0;
+        String collection = mongoTemplate.getCollectionName(UserDocument.class);
+        try (Stream<Document> users = mongoTemplate.stream(missing, Document.class, collection)) {
+            Iterator<Document> it = users.iterator();
+            while (it.hasNext()) {
+                Document user = it.next();
+                String usernameLower = UsernameSearchKeys.normalize(user.getString("username"));
+                bulk.updateOne(Query.query(Criteria.where("_id").is(user.get("_id"))),
+                        new Update().set("usernameLower", usernameLower)
+                                .set("usernameGrams", UsernameSearchKeys.grams(usernameLower)));
+                if (++pending == BACKFILL_BATCH_SIZE) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserDocument.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            updated += bulk.execute().getModifiedCount();
+        }
+        return updated;
+    }
+
+    @Override
+    public Stream<UserSummary> streamUserSummaries(int batchSize) {
+        Query query = secondaryReads.route(summaryQuery().cursorBatchSize(batchSize));
+        return mongoTemplate.stream(query, UserSummary.class, mongoTemplate.getCollectionName(UserDocument.class));
+    }
+
+    @Override
+    public UpdatedAccount updateAccount(UserUpdate update, LocalDateTime now) {
+        String revocationId = new ObjectId().toHexString();
+        UserDocument updated = mongoTemplate.findAndModify(idQuery(update.id()), accountUpdate(update, now, revocationId),
+                FindAndModifyOptions.options().returnNew(true), UserDocument.class);
+        return updated != null ? new UpdatedAccount(updated, revocationId.equals(updated.getRevocationId())) : null;
+    }
+
+    @Override
+    public BulkUpdateResult bulkUpdateAccounts(List<UserUpdate> updates, LocalDateTime now) {
+        if (updates.isEmpty()) {
+            return new BulkUpdateResult(0, List.of());
+        }
+        String revocationId = new ObjectId().toHexString();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserDocument.class);
+        List<ObjectId> ids = new ArrayList<>(updates.size());
+        for (UserUpdate update : updates) {
+            bulk.updateOne(idQuery(update.id()), accountUpdate(update, now, revocationId));
+            ids.add(new ObjectId(update.id()));
+        }
+        bulk.execute();
+
+        Query revoked = revokedAccountsQuery(ids, revocationId);
+        revoked.fields().include("username", "tokenVersion", "tokensRevokedAt");
+        List<UserDocument> changed = mongoTemplate.find(revoked, UserDocument.class);
+        return new BulkUpdateResult(changed.size(), changed);
+    }
+
+    @Override
+    public List<InsertFailure> insertUsers(List<UserDocument> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserDocument.class).insert(users).execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors().stream()
+                    .map(error -> new InsertFailure(error.getIndex(), error.getCode() == DUPLICATE_KEY, error.getMessage()))
+                    .toList();
+        }
+    }
+
+    static Query idQuery(String id) {
+        return Query.query(Criteria.where("id").is(id));
+    }
+
+    // The accounts an update revoked, told apart from those of concurrent updates by its revocation ID
+    static Query revokedAccountsQuery(List<ObjectId> ids, String revocationId) {
+        return Query.query(Criteria.where("id").in(ids).and("revocationId").is(revocationId));
+    }
+
+    static Query missingSearchKeysQuery() {
+        return Query.query(Criteria.where("usernameLower").exists(false));
+    }
+
+    /**
+     * Pipeline update that sets the requested fields and updatedAt. Only if the
+     * role or active status actually differs does it also increment
+     * tokenVersion and stamp tokensRevokedAt and the given revocation ID, so
+     * one round trip both applies the change and records whether it revoked.
+     */
+    static AggregationUpdate accountUpdate(UserUpdate update, LocalDateTime now, String revocationId) {
+        // Raw pipeline values bypass the converter, so store the date as the converter would
+        Date at = Date.from(now.atZone(ZoneId.systemDefault()).toInstant());
+        List<Document> differs = new ArrayList<>(2);
+        if (update.role() != null) {
+            differs.add(new Document("$ne", List.of("$role", update.role())));
+        }
+        if (update.isActive() != null) {
+            differs.add(new Document("$ne", List.of("$isActive", update.isActive())));
+        }
+        Document revokes = new Document("$or", differs);
+        Document nextVersion = new Document("$add", List.of(new Document("$ifNull", List.of("$tokenVersion", 0)), 1));
+        // Every expression in one $set stage sees the document as it was before the update
+        Document set = new Document("tokenVersion", ifRevoked(revokes, nextVersion, "$tokenVersion"))
+                .append("tokensRevokedAt", ifRevoked(revokes, at, "$tokensRevokedAt"))
+                .append("revocationId", ifRevoked(revokes, revocationId, "$revocationId"))
+                .append("updatedAt", at);
+        if (update.role() != null) {
+            set.append("role", update.role());
+        }
+        if (update.isActive() != null) {
+            set.append("isActive", update.isActive());
+        }
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    private static Document ifRevoked(Document revokes, Object then, Object otherwise) {
+        return new Document("$cond", List.of(revokes, then, otherwise));
+    }
+
+    // Covered by the summary index: read in username order from index keys alone
+    static Query summaryQuery() {
+        Query query = new Query().with(Sort.by("username")).withHint(UserDocument.SUMMARY_INDEX);
+        query.fields().include("username", "role").exclude("_id");
+        return query;
+    }
+
+    static Query keysetQuery(String afterId, String usernameQuery, boolean prefixOnly, int limit) {
+        Query query = searchQuery(usernameQuery, prefixOnly);
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(new ObjectId(afterId)));
+        }
+        return query.with(ID_ORDER).limit(limit);
+    }
+
+    static Query pageQuery(String usernameQuery, boolean prefixOnly, Pageable pageable) {
+        Query query = searchQuery(usernameQuery, prefixOnly).with(pageable);
+        return query.isSorted() ? query : query.with(ID_ORDER);
+    }
+
+    static Query searchQuery(String usernameQuery, boolean prefixOnly) {
+        Query query = new Query();
+        if (usernameQuery != null && !usernameQuery.trim().isEmpty()) {
+            query.addCriteria(prefixOnly
+                    ? UserSearchCriteria.prefix(usernameQuery)
+                    : UserSearchCriteria.contains(usernameQuery));
+        }
+        return query;
+    }
+
+    // A $count stage emits no document when nothing matches, so an empty facet means zero
+    private static long facetCount(Document result, String facet) {
+        List<Document> buckets = result.getList(facet, Document.class);
+        if (buckets == null || buckets.isEmpty()) {
+            return 0;
+        }
+        return buckets.get(0).get("n", Number.class).longValue();
+    }
+}
@@ -0,0 +1,52 @@
+package edu.belmont.demo.repository;
+
+import edu.belmont.demo.model.UsernameSearchKeys;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+
+/**
+ * Builds username search filters that can be answered from indexes: anchored,
+ * case-sensitive regexes on usernameLower for prefixes, and n-gram lookups on
+ * the multikey usernameGrams index for substrings.
+ */
+final class UserSearchCriteria {
+
+    private UserSearchCriteria() {}
+
+    static Criteria prefix(String text) {
+        return Criteria.where("usernameLower").regex("^" + escape(UsernameSearchKeys.normalize(text)));
+    }
+
+    static Criteria contains(String text) {
+        String normalized = UsernameSearchKeys.normalize(text);
+        List<String> grams = UsernameSearchKeys.queryGrams(normalized);
+        if (grams.isEmpty()) {
+            // A single character has no n-gram; scan the usernameLower index instead of the collection
+            return Criteria.where("usernameLower").regex(escape(normalized));
+        }
+        if (normalized.length() == 2) {
+            return Criteria.where("usernameGrams").is(normalized);
+        }
+        // Trigrams narrow the candidates through the index; the regex confirms they are contiguous
+        return Criteria.where("usernameGrams").all(grams).and("usernameLower").regex(escape(normalized));
+    }
+
+    /**
+     * The original unanchored case-insensitive regex, kept for comparison benchmarks.
+     */
+    static Criteria legacyContains(String text) {
+        return Criteria.where("username").regex(escape(text), "i");
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (char c : text.toCharArray()) {
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package edu.belmont.demo.repository;
+
+import edu.belmont.demo.model.UserDocument;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the username search keys in step with the username on every save or
+ * insert, including documents loaded before the keys existed.
+ */
+@Component
+class UserSearchKeysCallback implements BeforeConvertCallback<UserDocument> {
+
+    @Override
+    public UserDocument onBeforeConvert(UserDocument user, String collection) {
+        user.refreshSearchKeys();
+        return user;
+    }
+}
@@ -1,142 +1,317 @@
 package edu.belmont.demo.service;
 
+import edu.belmont.demo.model.BulkUpdateResult;
+import edu.belmont.demo.model.CursorPage;
+import edu.belmont.demo.model.UserCredentials;
 import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserInvalidation;
+import edu.belmont.demo.model.UserStats;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.model.UpdatedAccount;
+import edu.belmont.demo.model.UserUpdate;
 import edu.belmont.demo.repository.UserRepository;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final PasswordHashingPool passwordHashingPool;
+    private final LastLoginWriteBehind lastLoginWriteBehind;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final UserLookupCache userLookupCache;
+    private final LoginMetrics loginMetrics;
+    private final UserCollectionVersion collectionVersion;
+    private final SingleFlightCache<VersionedStats> statsCache;
+
+    // Stats with the collection version read before they were computed
+    private record VersionedStats(UserStats stats, long version) {}
 
     @Autowired
-    public AuthService(UserRepository userRepository) {
+    public AuthService(UserRepository userRepository, PasswordHashingPool passwordHashingPool,
+                       LastLoginWriteBehind lastLoginWriteBehind, TokenVersionRegistry tokenVersionRegistry,
+                       UserLookupCache userLookupCache, LoginMetrics loginMetrics,
+                       UserCollectionVersion collectionVersion,
+                       @Value("${auth.stats.cacheTtlMs:5000}") long statsCacheTtlMs) {
         this.userRepository = userRepository;
+        this.passwordHashingPool = passwordHashingPool;
+        this.lastLoginWriteBehind = lastLoginWriteBehind;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.userLookupCache = userLookupCache;
+        this.loginMetrics = loginMetrics;
+        this.collectionVersion = collectionVersion;
+        this.statsCache = new SingleFlightCache<>(this::loadUserStats, Duration.ofMillis(statsCacheTtlMs), Clock.systemUTC());
     }
 
-    public boolean validateCredentials(String username, String rawPassword) {
-        Optional<UserDocument> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isEmpty()) {
-            return false;
+    /**
+     * Authenticate a username/password pair with a single projected lookup.
+     * The BCrypt comparison runs on the dedicated hashing pool rather than the
+     * request thread. The returned credentials are reused by the caller for the
+     * deactivated-account check and {@link #updateLastLogin(UserCredentials)}.
+     *
+     * @return The user's credentials if the password matches, otherwise empty
+     * @throws PasswordHashingRejectedException if the hashing pool is saturated
+     */
+    public Optional<UserCredentials> authenticate(String username, String rawPassword) {
+        if (username == null || rawPassword == null) {
+            loginMetrics.recordOutcome(LoginMetrics.Outcome.INVALID_REQUEST);
+            return Optional.empty();
+        }
+
+        long lookupStart = System.nanoTime();
+        Optional<UserCredentials> credentials = userLookupCache.findCredentials(username);
+        loginMetrics.recordStage(LoginMetrics.Stage.LOOKUP, lookupStart);
+        if (credentials.isEmpty() || credentials.get().passwordHash() == null) {
+            loginMetrics.recordOutcome(LoginMetrics.Outcome.UNKNOWN_USER);
+            return Optional.empty();
+        }
+
+        long checkStart = System.nanoTime();
+        boolean matches;
+        try {
+            matches = passwordHashingPool.checkpw(rawPassword, credentials.get().passwordHash());
+        } finally {
+            loginMetrics.recordStage(LoginMetrics.Stage.CHECKPW, checkStart);
         }
-        UserDocument user = userOpt.get();
-        String hash = user.getPasswordHash();
-        return hash != null && BCrypt.checkpw(rawPassword, hash);
+        if (!matches) {
+            loginMetrics.recordOutcome(LoginMetrics.Outcome.BAD_PASSWORD);
+            return Optional.empty();
+        }
+        return credentials;
+    }
+
+    public boolean validateCredentials(String username, String rawPassword) {
+        return authenticate(username, rawPassword).isPresent();
+    }
+
+    /**
+     * Login-relevant fields of a user, from the near-cache when possible.
+     */
+    public Optional<UserCredentials> getCredentials(String username) {
+        return userLookupCache.findCredentials(username);
     }
 
     public Optional<UserDocument> getUser(String username) {
-        return userRepository.findByUsername(username);
+        return userLookupCache.findByUsername(username);
     }
 
-    public List<UserDocument> getAllUsers() {
-        return userRepository.findAll();
+    /**
+     * Stream username/role for all users without loading them into memory.
+     * The caller must close the stream.
+     *
+     * @param batchSize Cursor batch size
+     * @return Lazily fetched user summaries
+     */
+    public Stream<UserSummary> streamUserSummaries(int batchSize) {
+        return userRepository.streamUserSummaries(batchSize);
     }
 
     /**
      * Get all users with pagination and optional search query.
      * 
      * @param query Optional search query for username
+     * @param prefixOnly Match only usernames starting with the query
      * @param pageable Pagination parameters
      * @return Page of users
      */
-    public Page<UserDocument> getAllUsers(String query, Pageable pageable) {
-        if (query != null && !query.trim().isEmpty()) {
-            return userRepository.findByUsernameContainingIgnoreCase(query, pageable);
+    public Page<UserDocument> getAllUsers(String query, boolean prefixOnly, Pageable pageable) {
+        // A blank query lists everyone; searchUsers rather than findAll so the read can go to a secondary
+        return userRepository.searchUsers(query, prefixOnly, pageable);
+    }
+
+    /**
+     * Get one keyset page of users ordered by ID. Fetches one extra row to tell
+     * whether another page follows, so no count query is needed.
+     *
+     * @param cursor Opaque cursor from the previous page, or null/blank for the first page
+     * @param query Optional search query for username
+     * @param prefixOnly Match only usernames starting with the query
+     * @param size Page size
+     * @return Page of users with the cursor for the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CursorPage<UserDocument> getUsersAfter(String cursor, String query, boolean prefixOnly, int size) {
+        List<UserDocument> rows = userRepository.findUsersAfter(decodeCursor(cursor), query, prefixOnly, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<UserDocument> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encodeCursor(page.get(page.size() - 1).getId()) : null;
+        return new CursorPage<>(page, nextCursor, hasNext);
+    }
+
+    /**
+     * Count users matching an optional username search.
+     */
+    public long countUsers(String query, boolean prefixOnly) {
+        return userRepository.countUsers(query, prefixOnly);
+    }
+
+    static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
         }
-        return userRepository.findAll(pageable);
+        String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return id;
     }
 
     /**
      * Update user information (roles, status, etc.).
+     * The change is applied with a single findAndModify, so concurrent updates
+     * to the same user cannot overwrite each other.
      * 
      * @param userId User ID to update
      * @param updateData Map containing fields to update
      * @return Updated user document or null if not found
      */
     public UserDocument updateUser(String userId, Map<String, Object> updateData) {
-        Optional<UserDocument> userOpt = userRepository.findById(userId);
-        if (userOpt.isEmpty()) {
-            return null;
+        UserUpdate update = toUserUpdate(userId, updateData.get("role"), updateData.get("isActive"));
+        if (update.isEmpty()) {
+            return userRepository.findById(userId).orElse(null);
         }
 
-        UserDocument user = userOpt.get();
-        boolean updated = false;
-
-        // Update role if provided
-        if (updateData.containsKey("role")) {
-            String newRole = (String) updateData.get("role");
-            if (newRole != null && (newRole.equals("USER") || newRole.equals("ADMIN"))) {
-                user.setRole(newRole);
-                updated = true;
-            }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        UpdatedAccount updated = userRepository.updateAccount(update, now);
+        if (updated == null) {
+            return null;
         }
+        // Role and active state are carried in tokens, so existing tokens must be refreshed
+        publishAccountChanges(List.of(updated.user()), updated.tokensRevoked() ? now : null);
+        return updated.user();
+    }
 
-        // Update active status if provided
-        if (updateData.containsKey("isActive")) {
-            Boolean isActive = (Boolean) updateData.get("isActive");
-            if (isActive != null) {
-                user.setActive(isActive);
-                updated = true;
+    /**
+     * Update roles and status of many users in one unordered bulk write.
+     * Entries with an invalid ID or nothing to change are skipped.
+     * 
+     * @param updates Requested changes; role must be USER or ADMIN
+     * @return Counts of requested, skipped and modified users
+     */
+    public Map<String, Object> updateUsers(List<UserUpdate> updates) {
+        List<UserUpdate> valid = new ArrayList<>(updates.size());
+        List<String> skipped = new ArrayList<>();
+        for (UserUpdate requested : updates) {
+            UserUpdate update = toUserUpdate(requested.id(), requested.role(), requested.isActive());
+            if (update.id() == null || !ObjectId.isValid(update.id()) || update.isEmpty()) {
+                skipped.add(requested.id());
+            } else {
+                valid.add(update);
             }
         }
 
-        if (updated) {
-            user.setUpdatedAt(LocalDateTime.now());
-            return userRepository.save(user);
-        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        BulkUpdateResult result = userRepository.bulkUpdateAccounts(valid, now);
+        publishAccountChanges(result.changedUsers(), now);
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("requested", updates.size());
+        summary.put("modified", result.modified());
+        summary.put("unchanged", valid.size() - result.modified());
+        summary.put("skipped", skipped);
+        return summary;
+    }
+
+    static UserUpdate toUserUpdate(String userId, Object role, Object isActive) {
+        String newRole = "USER".equals(role) || "ADMIN".equals(role) ? (String) role : null;
+        Boolean active = isActive instanceof Boolean b ? b : null;
+        return new UserUpdate(userId, newRole, active);
+    }
 
-        return user;
+    void publishAccountChanges(List<UserDocument> users, LocalDateTime revokedAt) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Instant revokedInstant = revokedAt != null ? revokedAt.atZone(ZoneId.systemDefault()).toInstant() : null;
+        List<UserInvalidation> invalidations = new ArrayList<>(users.size());
+        for (UserDocument user : users) {
+            if (revokedInstant != null) {
+                tokenVersionRegistry.record(user.getUsername(), user.getTokenVersion(), revokedInstant);
+                invalidations.add(UserInvalidation.account(user.getUsername(), user.getTokenVersion(), revokedInstant));
+            } else {
+                invalidations.add(UserInvalidation.account(user.getUsername(), null, null));
+            }
+        }
+        userLookupCache.invalidate(invalidations);
     }
 
     /**
      * Update user's last login timestamp.
+     * The write is buffered and flushed in bulk by {@link LastLoginWriteBehind},
+     * so it does not add a database round trip to the login request.
      * 
-     * @param username Username to update
+     * @param credentials Credentials returned by {@link #authenticate(String, String)}
      */
-    public void updateLastLogin(String username) {
-        Optional<UserDocument> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent()) {
-            UserDocument user = userOpt.get();
-            user.setLastLoginAt(LocalDateTime.now());
-            user.setUpdatedAt(LocalDateTime.now());
-            userRepository.save(user);
-        }
+    public void updateLastLogin(UserCredentials credentials) {
+        long start = System.nanoTime();
+        lastLoginWriteBehind.record(credentials.id(), credentials.username(), LocalDateTime.now());
+        loginMetrics.recordStage(LoginMetrics.Stage.LAST_LOGIN, start);
     }
 
     /**
      * Get dashboard statistics.
+     * Counts come from one aggregation and are cached for a few seconds, so
+     * concurrent dashboards share a single computation. A cached result is
+     * dropped as soon as the collection version advances, so it is never older
+     * than the version an ETag was taken from; logins alone do not advance it.
      * 
-     * @return Map containing various user statistics
+     * @return Map containing various user statistics and how old they are
      */
     public Map<String, Object> getUserStats() {
+        SingleFlightCache.Snapshot<VersionedStats> snapshot = statsCache.get();
+        if (snapshot.value().version() != collectionVersion.current()) {
+            statsCache.invalidate();
+            snapshot = statsCache.get();
+        }
+        return toStatsResponse(snapshot.value().stats(), snapshot.computedAt());
+    }
+
+    static Map<String, Object> toStatsResponse(UserStats userStats, Instant computedAt) {
         Map<String, Object> stats = new HashMap<>();
-        
-        long totalUsers = userRepository.count();
-        long activeUsers = userRepository.countByIsActive(true);
-        long adminUsers = userRepository.countByRole("ADMIN");
-        long regularUsers = userRepository.countByRole("USER");
-        
-        // Count users who logged in today
-        LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        long todayLogins = userRepository.countByLastLoginAtAfter(today);
-        
-        stats.put("totalUsers", totalUsers);
-        stats.put("activeUsers", activeUsers);
-        stats.put("inactiveUsers", totalUsers - activeUsers);
-        stats.put("adminUsers", adminUsers);
-        stats.put("regularUsers", regularUsers);
-        stats.put("todayLogins", todayLogins);
+        stats.put("totalUsers", userStats.totalUsers());
+        stats.put("activeUsers", userStats.activeUsers());
+        stats.put("inactiveUsers", userStats.totalUsers() - userStats.activeUsers());
+        stats.put("adminUsers", userStats.adminUsers());
+        stats.put("regularUsers", userStats.regularUsers());
+        stats.put("todayLogins", userStats.todayLogins());
+        stats.put("computedAt", computedAt.toString());
+        stats.put("ageMillis", Duration.between(computedAt, Instant.now()).toMillis());
         
         return stats;
     }
+
+    private VersionedStats loadUserStats() {
+        long version = collectionVersion.current();
+        return new VersionedStats(userRepository.aggregateUserStats(statsLoginsSince()), version);
+    }
+
+    // Count users who logged in today; also part of the stats ETag, which must change at midnight
+    public static LocalDateTime statsLoginsSince() {
+        return LocalDate.now().atStartOfDay();
+    }
 }
@@ -1,45 +1,155 @@
 package edu.belmont.demo.service;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SecurityException;
+import io.jsonwebtoken.security.SignatureException;
 
-import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
 import java.time.Instant;
 import java.util.Date;
 
+/**
+ * Issues and verifies access tokens, signed either HS256 with a shared secret
+ * or ES256 with a {@link SigningKeySet}. ES256 tokens carry the signing key's
+ * id in their {@code kid} header, so other services can verify them against
+ * the published JWKS without calling this one.
+ */
 public class JwtService {
 
-    private final SecretKey secretKey;
+    /**
+     * Version of the claim set below. Tokens carrying any other version (or none)
+     * are rejected so clients log in again and receive current claims.
+     */
+    public static final int CLAIMS_VERSION = 1;
+
+    static final String CLAIM_VERSION = "cv";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_ACTIVE = "active";
+    static final String CLAIM_TOKEN_VERSION = "tv";
+
+    private final Key signingKey;
+    private final SignatureAlgorithm algorithm;
+    // Null when signing HS256
+    private final String kid;
     private final long ttlSeconds;
+    private final JwtParser parser;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenVersionRegistry tokenVersions;
 
     public JwtService(String secret, long ttlSeconds) {
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this(secret, ttlSeconds, 0, new TokenVersionRegistry(ttlSeconds));
+    }
+
+    public JwtService(String secret, long ttlSeconds, int tokenCacheSize, TokenVersionRegistry tokenVersions) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.algorithm = SignatureAlgorithm.HS256;
+        this.kid = null;
         this.ttlSeconds = ttlSeconds;
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.tokenCache = new VerifiedTokenCache(tokenCacheSize);
+        this.tokenVersions = tokenVersions;
     }
 
-    public String issueToken(String subject) {
+    public JwtService(SigningKeySet keys, long ttlSeconds, int tokenCacheSize, TokenVersionRegistry tokenVersions) {
+        this.signingKey = keys.getSigningKey();
+        this.algorithm = SignatureAlgorithm.ES256;
+        this.kid = keys.getActiveKid();
+        this.ttlSeconds = ttlSeconds;
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                // Only ES256 with a known key id; this rules out HS256 tokens signed with a public key
+                PublicKey key = keys.getVerificationKey(header.getKeyId());
+                if (key == null || !SignatureAlgorithm.ES256.getValue().equals(header.getAlgorithm())) {
+                    throw new SignatureException("Unknown signing key");
+                }
+                return key;
+            }
+        }).build();
+        this.tokenCache = new VerifiedTokenCache(tokenCacheSize);
+        this.tokenVersions = tokenVersions;
+    }
+
+    public String issueToken(String subject, String role, boolean active, int tokenVersion) {
         Instant now = Instant.now();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, kid)
                 .setSubject(subject)
+                .claim(CLAIM_VERSION, CLAIMS_VERSION)
+                .claim(CLAIM_ROLE, role)
+                .claim(CLAIM_ACTIVE, active)
+                .claim(CLAIM_TOKEN_VERSION, tokenVersion)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plusSeconds(ttlSeconds)))
-                .signWith(secretKey, SignatureAlgorithm.HS256)
+                .signWith(signingKey, algorithm)
                 .compact();
     }
 
+    /**
+     * Verify a token and return its claims, or null if the token is invalid,
+     * expired, issued for an inactive account, or superseded by a newer token
+     * version for its user.
+     */
+    public TokenClaims validate(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        TokenClaims claims = tokenCache.get(token, Instant.now());
+        if (claims == null) {
+            claims = parse(token);
+            if (claims == null) {
+                return null;
+            }
+            tokenCache.put(token, claims);
+        }
+        if (!claims.active() || claims.tokenVersion() < tokenVersions.currentVersion(claims.subject())) {
+            return null;
+        }
+        return claims;
+    }
+
     public String validateAndGetSubject(String token) {
+        TokenClaims claims = validate(token);
+        return claims != null ? claims.subject() : null;
+    }
+
+    private TokenClaims parse(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
-        } catch (SecurityException | IllegalArgumentException e) {
+            Claims body = parser.parseClaimsJws(token).getBody();
+            Integer claimsVersion = body.get(CLAIM_VERSION, Integer.class);
+            if (claimsVersion == null || claimsVersion != CLAIMS_VERSION) {
+                return null;
+            }
+            Integer tokenVersion = body.get(CLAIM_TOKEN_VERSION, Integer.class);
+            Date expiration = body.getExpiration();
+            return new TokenClaims(
+                    body.getSubject(),
+                    body.get(CLAIM_ROLE, String.class),
+                    Boolean.TRUE.equals(body.get(CLAIM_ACTIVE, Boolean.class)),
+                    tokenVersion != null ? tokenVersion : 0,
+                    expiration != null ? expiration.toInstant() : null);
+        } catch (JwtException | IllegalArgumentException e) {
             return null;
         }
     }
+
+    public long getTokenCacheHits() {
+        return tokenCache.hits();
+    }
+
+    public long getTokenCacheMisses() {
+        return tokenCache.misses();
+    }
+
+    public int getTokenCacheSize() {
+        return tokenCache.size();
+    }
 }
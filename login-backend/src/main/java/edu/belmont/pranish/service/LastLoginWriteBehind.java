@@ -0,0 +1,136 @@
+package edu.belmont.demo.service;
+
+import edu.belmont.demo.model.UserInvalidation;
+import edu.belmont.demo.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for last-login timestamps.
+ * Logins only record the time in memory; the latest value per user is flushed
+ * periodically (or once enough users are pending) as a single unordered bulk
+ * $set, and whatever is left is drained on shutdown. Each flush sends one
+ * cache invalidation for the users it wrote, marked as last-login only so it
+ * does not advance {@link UserCollectionVersion}.
+ */
+@Component
+public class LastLoginWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(LastLoginWriteBehind.class);
+
+    private record PendingLogin(String username, LocalDateTime loginAt) {}
+
+    private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
+    private final int maxPending;
+    private final ConcurrentHashMap<String, PendingLogin> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+
+    public LastLoginWriteBehind(
+            UserRepository userRepository,
+            UserLookupCache userLookupCache,
+            @Value("${auth.lastLogin.flushIntervalMs:1000}") long flushIntervalMs,
+            @Value("${auth.lastLogin.maxPending:500}") int maxPending) {
+        this.userRepository = userRepository;
+        this.userLookupCache = userLookupCache;
+        this.maxPending = maxPending;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "last-login-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record a login; only the latest time per user is kept until the next flush.
+     */
+    public void record(String userId, String username, LocalDateTime loginAt) {
+        pending.merge(userId, new PendingLogin(username, loginAt), LastLoginWriteBehind::latest);
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write all pending timestamps to MongoDB. Entries that fail to write are
+     * put back so the next flush retries them.
+     *
+     * @return Number of users written
+     */
+    public int flush() {
+        // A lock rather than synchronized: the bulk write blocks, and a virtual thread must not pin its carrier
+        flushLock.lock();
+        try {
+            return flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int flushPending() {
+        flushRequested.set(false);
+        Map<String, PendingLogin> batch = new HashMap<>();
+        for (String userId : pending.keySet()) {
+            PendingLogin login = pending.get(userId);
+            if (login != null && pending.remove(userId, login)) {
+                batch.put(userId, login);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<String, LocalDateTime> lastLoginById = new HashMap<>();
+        batch.forEach((userId, login) -> lastLoginById.put(userId, login.loginAt()));
+        try {
+            userRepository.bulkUpdateLastLogin(lastLoginById);
+        } catch (RuntimeException e) {
+            batch.forEach((userId, login) -> pending.merge(userId, login, LastLoginWriteBehind::latest));
+            throw e;
+        }
+        List<UserInvalidation> invalidations = new ArrayList<>(batch.size());
+        batch.values().forEach(login -> invalidations.add(UserInvalidation.lastLogin(login.username())));
+        userLookupCache.invalidate(invalidations);
+        return batch.size();
+    }
+
+    private static PendingLogin latest(PendingLogin current, PendingLogin next) {
+        return next.loginAt().isAfter(current.loginAt()) ? next : current;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} pending last-login updates, will retry", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        flushQuietly();
+    }
+}
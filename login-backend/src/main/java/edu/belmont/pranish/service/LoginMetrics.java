@@ -0,0 +1,101 @@
+package edu.belmont.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login latency per stage and login outcome counts.
+ * All meters are registered up front, so recording on the login path is an
+ * array lookup plus the meter update, with no tag resolution per request.
+ * <ul>
+ *   <li>{@code auth.login} - whole login request</li>
+ *   <li>{@code auth.login.stage{stage}} - credential lookup, BCrypt check
+ *       (including hashing-queue wait), last-login recording, token issue</li>
+ *   <li>{@code auth.login.outcomes{outcome}} - how each login attempt ended</li>
+ * </ul>
+ */
+public class LoginMetrics {
+
+    public enum Stage {
+        LOOKUP("lookup"),
+        CHECKPW("checkpw"),
+        LAST_LOGIN("last_login"),
+        ISSUE_TOKEN("issue_token");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS("success"),
+        UNKNOWN_USER("unknown_user"),
+        BAD_PASSWORD("bad_password"),
+        INACTIVE("inactive"),
+        REJECTED("rejected"),
+        RATE_LIMITED("rate_limited"),
+        INVALID_REQUEST("invalid_request");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(100_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    private final Timer login;
+    private final Timer[] stages = new Timer[Stage.values().length];
+    private final Counter[] outcomes = new Counter[Outcome.values().length];
+
+    public LoginMetrics(MeterRegistry registry) {
+        this.login = histogramTimer("auth.login")
+                .description("Login request duration")
+                .register(registry);
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = histogramTimer("auth.login.stage")
+                    .description("Time spent in each login stage")
+                    .tag("stage", stage.tag)
+                    .register(registry);
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes[outcome.ordinal()] = Counter.builder("auth.login.outcomes")
+                    .description("Login attempts by outcome")
+                    .tag("outcome", outcome.tag)
+                    .register(registry);
+        }
+    }
+
+    private static Timer.Builder histogramTimer(String name) {
+        return Timer.builder(name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED);
+    }
+
+    /**
+     * Record a stage that started at {@code startNanos} (from {@link System#nanoTime()}).
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stages[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the end of a login request that started at {@code startNanos}.
+     */
+    public void recordLogin(long startNanos) {
+        login.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutcome(Outcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+    }
+}
@@ -0,0 +1,187 @@
+package edu.belmont.demo.service;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket throttle for login attempts, keyed by client IP and by username,
+ * checked before the credential lookup so throttled attempts cost no database
+ * read and no BCrypt work. The username's attempt is given back once its
+ * credentials check out, so only failed attempts drain that bucket and a
+ * guessing attacker cannot lock the owner out while attempts remain.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will
+ * be full again (the GCRA form of a token bucket), updated with a CAS loop, so
+ * there are no locks on the login path. A bucket that has refilled is
+ * indistinguishable from a missing one, which is what eviction relies on: when
+ * a table grows past {@code maxKeys}, one caller sweeps out full buckets, and
+ * if that is not enough an arbitrary tenth of the table is dropped. That resets
+ * their limits, so memory stays bounded at the cost of some leniency under a
+ * flood of distinct keys.
+ */
+public class LoginRateLimiter {
+
+    public enum Limit {
+        IP("ip"),
+        USERNAME("username");
+
+        private final String tag;
+
+        Limit(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final boolean limitByIp;
+    private final Buckets ipBuckets;
+    private final Buckets usernameBuckets;
+
+    /**
+     * @param ipCapacity Attempts a client IP may burst, or 0 to not limit by IP
+     * @param ipRefillPerMinute Attempts a client IP regains per minute
+     * @param usernameCapacity Attempts a username may burst
+     * @param usernameRefillPerMinute Attempts a username regains per minute
+     * @param maxKeys Buckets kept per table before eviction
+     * @param nanoClock Time source, normally {@link System#nanoTime()}
+     */
+    public LoginRateLimiter(int ipCapacity, int ipRefillPerMinute, int usernameCapacity, int usernameRefillPerMinute,
+                            int maxKeys, LongSupplier nanoClock) {
+        this.limitByIp = ipCapacity > 0;
+        this.ipBuckets = new Buckets(ipCapacity, ipRefillPerMinute, maxKeys, nanoClock);
+        this.usernameBuckets = new Buckets(usernameCapacity, usernameRefillPerMinute, maxKeys, nanoClock);
+    }
+
+    /**
+     * Take one attempt from the client's and the username's buckets.
+     * The IP is checked first; an attempt it rejects does not count against the username.
+     *
+     * @param clientIp Remote address, or null if unknown
+     * @param username Requested username, or null
+     * @return 0 if the attempt may proceed, otherwise seconds until it may be retried
+     */
+    public long tryAcquire(String clientIp, String username) {
+        long waitNanos = limitByIp && clientIp != null ? ipBuckets.tryAcquire(clientIp) : 0;
+        if (waitNanos == 0 && username != null) {
+            waitNanos = usernameBuckets.tryAcquire(username.toLowerCase(Locale.ROOT));
+        }
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    /**
+     * Give back the username attempt taken by {@link #tryAcquire}, after the
+     * credentials turned out to be valid.
+     *
+     * @param username Username that logged in, or null
+     */
+    public void refund(String username) {
+        if (username != null) {
+            usernameBuckets.refund(username.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    public long getRejectedCount(Limit limit) {
+        return buckets(limit).rejected.sum();
+    }
+
+    public int getKeyCount(Limit limit) {
+        return buckets(limit).buckets.size();
+    }
+
+    public long getEvictedCount(Limit limit) {
+        return buckets(limit).evicted.sum();
+    }
+
+    private Buckets buckets(Limit limit) {
+        return limit == Limit.IP ? ipBuckets : usernameBuckets;
+    }
+
+    private static final class Buckets {
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final int maxKeys;
+        private final LongSupplier nanoClock;
+        // Value: time at which the bucket is full again
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder evicted = new LongAdder();
+
+        Buckets(int capacity, int refillPerMinute, int maxKeys, LongSupplier nanoClock) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, refillPerMinute);
+            this.burstNanos = intervalNanos * Math.max(1, capacity);
+            this.maxKeys = maxKeys;
+            this.nanoClock = nanoClock;
+        }
+
+        long tryAcquire(String key) {
+            long now = nanoClock.getAsLong();
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                // Make room first, so the sweep cannot drop the bucket about to be charged
+                if (buckets.size() >= maxKeys) {
+                    evict(now);
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            while (true) {
+                long fullAt = bucket.get();
+                long next = Math.max(fullAt, now) + intervalNanos;
+                long overdraft = next - now - burstNanos;
+                if (overdraft > 0) {
+                    rejected.increment();
+                    return overdraft;
+                }
+                if (bucket.compareAndSet(fullAt, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void refund(String key) {
+            AtomicLong bucket = buckets.get(key);
+            // A full time in the past is simply a full bucket, so this never grants extra attempts
+            if (bucket != null) {
+                bucket.addAndGet(-intervalNanos);
+            }
+        }
+
+        private void evict(long now) {
+            if (!sweeping.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                buckets.entrySet().removeIf(entry -> {
+                    boolean full = entry.getValue().get() <= now;
+                    if (full) {
+                        evicted.increment();
+                    }
+                    return full;
+                });
+                if (buckets.size() < maxKeys) {
+                    return;
+                }
+                // Everything is still draining: drop a slice so the table stays bounded
+                int excess = buckets.size() - maxKeys + Math.max(1, maxKeys / 10);
+                for (Iterator<Map.Entry<String, AtomicLong>> it = buckets.entrySet().iterator(); excess > 0 && it.hasNext(); excess--) {
+                    it.next();
+                    it.remove();
+                    evicted.increment();
+                }
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package edu.belmont.demo.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Small in-process LRU cache with a time-to-live, used in front of per-user
+ * repository reads. Absent values are not cached. A load that races with an
+ * invalidation of its key is not stored, so an invalidated value cannot be
+ * re-cached from a read that started before the write. Invalidations are
+ * tracked per stripe of keys, so a write only discards the loads in flight for
+ * keys that share its stripe.
+ */
+final class NearCache<V> {
+
+    private record Entry<V>(V value, Instant loadedAt) {}
+
+    private static final int STRIPES = 256;
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<String, Entry<V>> entries;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    NearCache(int maxSize, Duration ttl, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > NearCache.this.maxSize;
+            }
+        };
+    }
+
+    V get(String key, Function<String, V> loader) {
+        if (maxSize <= 0) {
+            return loader.apply(key);
+        }
+        Instant now = clock.instant();
+        V cached = lookup(key, now);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = generations.get(stripe(key));
+        V value = loader.apply(key);
+        if (value != null) {
+            store(key, value, now, loadGeneration);
+        }
+        return value;
+    }
+
+    /**
+     * {@link #get} for a loader that does not block, sharing the same entries.
+     */
+    Mono<V> getAsync(String key, Function<String, Mono<V>> loader) {
+        if (maxSize <= 0) {
+            return loader.apply(key);
+        }
+        return Mono.defer(() -> {
+            Instant now = clock.instant();
+            V cached = lookup(key, now);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long loadGeneration = generations.get(stripe(key));
+            return loader.apply(key).doOnNext(value -> store(key, value, now, loadGeneration));
+        });
+    }
+
+    private V lookup(String key, Instant now) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && now.isBefore(entry.loadedAt().plus(ttl))) {
+                hits.incrementAndGet();
+                return entry.value();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void store(String key, V value, Instant loadedAt, long loadGeneration) {
+        synchronized (entries) {
+            if (generations.get(stripe(key)) == loadGeneration) {
+                entries.put(key, new Entry<>(value, loadedAt));
+            }
+        }
+    }
+
+    void invalidate(Collection<String> keys) {
+        synchronized (entries) {
+            for (String key : keys) {
+                generations.incrementAndGet(stripe(key));
+                entries.remove(key);
+            }
+        }
+    }
+
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    long hits() { return hits.get(); }
+
+    long misses() { return misses.get(); }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
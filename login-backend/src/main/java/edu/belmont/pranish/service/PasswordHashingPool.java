@@ -0,0 +1,132 @@
+package edu.belmont.demo.service;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs BCrypt work on a fixed, CPU-sized pool with a bounded queue so a burst of
+ * logins cannot occupy every request thread. When the queue is full the call is
+ * rejected immediately with {@link PasswordHashingRejectedException}.
+ */
+public class PasswordHashingPool {
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long retryAfterSeconds;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    public PasswordHashingPool(int threads, int queueCapacity, long retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queueCapacity = queueCapacity;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Check a raw password against a BCrypt hash on the hashing pool.
+     */
+    public boolean checkpw(String rawPassword, String hash) {
+        return run(() -> BCrypt.checkpw(rawPassword, hash));
+    }
+
+    /**
+     * Check a raw password without blocking the caller; the result completes on a
+     * hashing thread. Used by the reactive stack.
+     *
+     * @throws PasswordHashingRejectedException if the queue is full
+     */
+    public CompletableFuture<Boolean> checkpwAsync(String rawPassword, String hash) {
+        return CompletableFuture.supplyAsync(() -> BCrypt.checkpw(rawPassword, hash), this::submit);
+    }
+
+    private <T> T run(Callable<T> work) {
+        FutureTask<T> future = new FutureTask<>(work);
+        submit(future);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private void submit(Runnable work) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                totalWaitNanos.addAndGet(System.nanoTime() - enqueuedAt);
+                try {
+                    work.run();
+                } finally {
+                    completed.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * Total time tasks spent queued before a hashing thread picked them up.
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
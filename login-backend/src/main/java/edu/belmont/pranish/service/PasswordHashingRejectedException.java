@@ -0,0 +1,19 @@
+package edu.belmont.demo.service;
+
+/**
+ * Thrown when the password hashing pool is saturated and a request is shed
+ * instead of queued.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(long retryAfterSeconds) {
+        super("Password hashing queue is full");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,189 @@
+package edu.belmont.demo.service;
+
+import edu.belmont.demo.model.CursorPage;
+import edu.belmont.demo.model.UserCredentials;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserStats;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.model.UserUpdate;
+import edu.belmont.demo.repository.ReactiveUserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Non-blocking version of {@link AuthService} for the reactive web stack.
+ * Reads and single-user writes go through {@link ReactiveUserRepository};
+ * BCrypt runs on the bounded {@link PasswordHashingPool} and is awaited without
+ * holding an event-loop thread. Credential lookups go through the same
+ * {@link UserLookupCache} entries as the blocking stack, and token revocation,
+ * cache invalidation and the last-login write-behind are shared with it too.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthService {
+
+    private final ReactiveUserRepository userRepository;
+    private final AuthService authService;
+    private final UserLookupCache userLookupCache;
+    private final PasswordHashingPool passwordHashingPool;
+    private final LoginMetrics loginMetrics;
+    private final UserCollectionVersion collectionVersion;
+    private final Duration statsCacheTtl;
+    private volatile CachedStats userStats;
+
+    public ReactiveAuthService(ReactiveUserRepository userRepository, AuthService authService,
+                               UserLookupCache userLookupCache, PasswordHashingPool passwordHashingPool, LoginMetrics loginMetrics,
+                               UserCollectionVersion collectionVersion,
+                               @Value("${auth.stats.cacheTtlMs:5000}") long statsCacheTtlMs) {
+        this.userRepository = userRepository;
+        this.authService = authService;
+        this.userLookupCache = userLookupCache;
+        this.passwordHashingPool = passwordHashingPool;
+        this.loginMetrics = loginMetrics;
+        this.collectionVersion = collectionVersion;
+        this.statsCacheTtl = Duration.ofMillis(statsCacheTtlMs);
+    }
+
+    private record Snapshot(UserStats stats, Instant computedAt) {}
+
+    // Shared stats computation for one collection version
+    private record CachedStats(long version, Mono<Snapshot> snapshot) {}
+
+    /**
+     * @see AuthService#authenticate(String, String)
+     * @return The user's credentials if the password matches, otherwise empty;
+     *         errors with {@link PasswordHashingRejectedException} if the hashing pool is saturated
+     */
+    public Mono<UserCredentials> authenticate(String username, String rawPassword) {
+        if (username == null || rawPassword == null) {
+            loginMetrics.recordOutcome(LoginMetrics.Outcome.INVALID_REQUEST);
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            long lookupStart = System.nanoTime();
+            return userLookupCache.findCredentials(username, userRepository)
+                    .doOnTerminate(() -> loginMetrics.recordStage(LoginMetrics.Stage.LOOKUP, lookupStart));
+        })
+                .filter(credentials -> credentials.passwordHash() != null)
+                .switchIfEmpty(Mono.fromRunnable(() -> loginMetrics.recordOutcome(LoginMetrics.Outcome.UNKNOWN_USER)))
+                .flatMap(credentials -> Mono.defer(() -> {
+                    long checkStart = System.nanoTime();
+                    return Mono.fromFuture(() -> passwordHashingPool.checkpwAsync(rawPassword, credentials.passwordHash()))
+                            .doOnTerminate(() -> loginMetrics.recordStage(LoginMetrics.Stage.CHECKPW, checkStart));
+                }).flatMap(matches -> {
+                    if (!matches) {
+                        loginMetrics.recordOutcome(LoginMetrics.Outcome.BAD_PASSWORD);
+                        return Mono.empty();
+                    }
+                    return Mono.just(credentials);
+                }));
+    }
+
+    /**
+     * @see AuthService#getCredentials(String)
+     */
+    public Mono<UserCredentials> getCredentials(String username) {
+        return userLookupCache.findCredentials(username, userRepository);
+    }
+
+    /**
+     * @see AuthService#updateLastLogin(UserCredentials)
+     */
+    public void updateLastLogin(UserCredentials credentials) {
+        authService.updateLastLogin(credentials);
+    }
+
+    /**
+     * Username and role of every user, emitted as they are read from the cursor.
+     */
+    public Flux<UserSummary> getUserSummaries() {
+        return userRepository.findUserSummaries();
+    }
+
+    /**
+     * @see AuthService#getAllUsers(String, boolean, Pageable)
+     */
+    public Mono<Page<UserDocument>> getAllUsers(String query, boolean prefixOnly, Pageable pageable) {
+        return userRepository.searchUsers(query, prefixOnly, pageable);
+    }
+
+    /**
+     * @see AuthService#getUsersAfter(String, String, boolean, int)
+     * @return Errors with IllegalArgumentException if the cursor is malformed
+     */
+    public Mono<CursorPage<UserDocument>> getUsersAfter(String cursor, String query, boolean prefixOnly, int size) {
+        return Mono.fromCallable(() -> AuthService.decodeCursor(cursor))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(afterId -> userRepository.findUsersAfter(afterId.orElse(null), query, prefixOnly, size + 1)
+                        .collectList())
+                .map(rows -> {
+                    boolean hasNext = rows.size() > size;
+                    List<UserDocument> page = hasNext ? rows.subList(0, size) : rows;
+                    String nextCursor = hasNext ? AuthService.encodeCursor(page.get(page.size() - 1).getId()) : null;
+                    return new CursorPage<>(page, nextCursor, hasNext);
+                });
+    }
+
+    public Mono<Long> countUsers(String query, boolean prefixOnly) {
+        return userRepository.countUsers(query, prefixOnly);
+    }
+
+    /**
+     * @see AuthService#updateUser(String, Map)
+     * @return The updated user, or empty if not found
+     */
+    public Mono<UserDocument> updateUser(String userId, Map<String, Object> updateData) {
+        UserUpdate update = AuthService.toUserUpdate(userId, updateData.get("role"), updateData.get("isActive"));
+        if (update.isEmpty()) {
+            return userRepository.findById(userId);
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        return userRepository.updateAccount(update, now)
+                // Publishing the invalidation writes to the shared collection with the blocking driver
+                .flatMap(updated -> Mono.fromRunnable(() -> authService.publishAccountChanges(
+                                List.of(updated.user()), updated.tokensRevoked() ? now : null))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(updated.user()));
+    }
+
+    /**
+     * Bulk updates are rare admin operations, so they reuse the blocking
+     * implementation on the bounded elastic scheduler.
+     *
+     * @see AuthService#updateUsers(List)
+     */
+    public Mono<Map<String, Object>> updateUsers(List<UserUpdate> updates) {
+        return Mono.fromCallable(() -> authService.updateUsers(updates)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @see AuthService#getUserStats()
+     */
+    public Mono<Map<String, Object>> getUserStats() {
+        long version = collectionVersion.current();
+        CachedStats cached = userStats;
+        if (cached == null || cached.version() != version) {
+            // Subscribers arriving while the aggregation runs share it; the result is reused for the TTL
+            cached = new CachedStats(version, Mono.defer(() -> userRepository.aggregateUserStats(AuthService.statsLoginsSince())
+                            .map(stats -> new Snapshot(stats, Instant.now())))
+                    .cache(snapshot -> statsCacheTtl, error -> Duration.ZERO, () -> Duration.ZERO));
+            userStats = cached;
+        }
+        return cached.snapshot().map(snapshot -> AuthService.toStatsResponse(snapshot.stats(), snapshot.computedAt()));
+    }
+}
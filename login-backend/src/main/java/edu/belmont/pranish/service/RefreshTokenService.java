@@ -0,0 +1,137 @@
+package edu.belmont.demo.service;
+
+import edu.belmont.demo.model.RefreshTokenDocument;
+import edu.belmont.demo.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Long-lived refresh tokens that let a client get a new access token without
+ * sending its password again, so returning users skip the BCrypt check.
+ * <p>
+ * Tokens are 256 random bits handed to the client once; only their SHA-256
+ * hash is stored, with a server-side expiry. Each refresh consumes the token
+ * and issues a new one in the same family. Presenting a token that was already
+ * used means it was copied, so the whole family is revoked and the holder of
+ * the newest token has to log in again.
+ */
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * A successful refresh.
+     *
+     * @param username User the token belongs to
+     * @param familyId Family of the consumed and the new token
+     * @param refreshToken Replacement token to return to the client
+     */
+    public record Rotation(String username, String familyId, String refreshToken) {}
+
+    private final RefreshTokenRepository repository;
+    private final Duration ttl;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder rotated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    public RefreshTokenService(RefreshTokenRepository repository, Duration ttl, Clock clock) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Start a new token family after a password login.
+     *
+     * @return The refresh token to return to the client
+     */
+    public String issue(String username) {
+        String token = store(username, UUID.randomUUID().toString(), clock.instant());
+        issued.increment();
+        return token;
+    }
+
+    /**
+     * Exchange a refresh token for a new one.
+     *
+     * @return The rotation, or empty if the token is unknown, expired or was already used
+     */
+    public Optional<Rotation> rotate(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        String id = hash(refreshToken);
+        Instant now = clock.instant();
+        RefreshTokenDocument claimed = repository.claim(id, now);
+        if (claimed == null) {
+            rejected.increment();
+            repository.findById(id)
+                    .filter(token -> token.usedAt() != null)
+                    .ifPresent(token -> {
+                        reused.increment();
+                        log.warn("Refresh token reuse for user {}, revoking its sessions", token.username());
+                        repository.deleteByFamilyId(token.familyId());
+                    });
+            return Optional.empty();
+        }
+        String next = store(claimed.username(), claimed.familyId(), now);
+        rotated.increment();
+        return Optional.of(new Rotation(claimed.username(), claimed.familyId(), next));
+    }
+
+    /**
+     * Revoke the family a refresh token belongs to, e.g. on logout.
+     */
+    public void revoke(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return;
+        }
+        repository.findById(hash(refreshToken)).ifPresent(token -> revokeFamily(token.familyId()));
+    }
+
+    public void revokeFamily(String familyId) {
+        repository.deleteByFamilyId(familyId);
+    }
+
+    private String store(String username, String familyId, Instant now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        repository.insert(new RefreshTokenDocument(hash(token), username, familyId, now.plus(ttl), null));
+        return token;
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public long getIssuedCount() { return issued.sum(); }
+
+    public long getRotatedCount() { return rotated.sum(); }
+
+    public long getRejectedCount() { return rejected.sum(); }
+
+    public long getReusedCount() { return reused.sum(); }
+}
@@ -0,0 +1,170 @@
+package edu.belmont.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * EC P-256 keys for ES256 token signing, identified by key id ({@code kid}).
+ * <p>
+ * One key signs; every key in the set verifies, so a key can be rotated in
+ * ahead of use (published in the JWKS before it signs anything) and retired
+ * after the tokens it signed have expired. The public half of the set is
+ * rendered once as a JWKS document with a content-derived ETag, since it only
+ * changes on restart.
+ */
+public class SigningKeySet {
+
+    private final String activeKid;
+    private final PrivateKey signingKey;
+    private final Map<String, PublicKey> verificationKeys;
+    private final byte[] jwks;
+    private final String jwksETag;
+
+    SigningKeySet(String activeKid, PrivateKey signingKey, Map<String, PublicKey> verificationKeys) {
+        if (!verificationKeys.containsKey(activeKid)) {
+            throw new IllegalArgumentException("No public key for active key id " + activeKid);
+        }
+        this.activeKid = activeKid;
+        this.signingKey = signingKey;
+        this.verificationKeys = Collections.unmodifiableMap(new TreeMap<>(verificationKeys));
+        this.jwks = renderJwks(this.verificationKeys);
+        this.jwksETag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(jwks)) + "\"";
+    }
+
+    /**
+     * Load the EC key entries of a PKCS#12 keystore; each alias is a key id.
+     *
+     * @param activeKid Alias that signs new tokens, or null for the greatest alias
+     *                  (date-based aliases such as {@code 2025-06} make that the newest)
+     */
+    public static SigningKeySet load(Path keyStore, char[] password, String activeKid) {
+        try (InputStream in = Files.newInputStream(keyStore)) {
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            store.load(in, password);
+            TreeMap<String, PublicKey> publicKeys = new TreeMap<>();
+            for (String alias : Collections.list(store.aliases())) {
+                Certificate certificate = store.getCertificate(alias);
+                if (certificate != null && certificate.getPublicKey() instanceof ECPublicKey ec) {
+                    publicKeys.put(alias, ec);
+                }
+            }
+            if (publicKeys.isEmpty()) {
+                throw new IllegalStateException("No EC keys in " + keyStore);
+            }
+            String kid = activeKid != null && !activeKid.isBlank() ? activeKid : publicKeys.lastKey();
+            Key key = store.getKey(kid, password);
+            if (!(key instanceof PrivateKey privateKey)) {
+                throw new IllegalStateException("No private key for active key id " + kid + " in " + keyStore);
+            }
+            return new SigningKeySet(kid, privateKey, publicKeys);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load signing keys from " + keyStore, e);
+        }
+    }
+
+    /**
+     * A single key pair that lives as long as the process. Tokens it signs stop
+     * verifying on restart and are not accepted by other instances.
+     */
+    public static SigningKeySet generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+            String kid = UUID.randomUUID().toString();
+            return new SigningKeySet(kid, pair.getPrivate(), Map.of(kid, pair.getPublic()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate an EC P-256 key pair", e);
+        }
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * @return The public key for a key id, or null if the id is not in the set
+     */
+    PublicKey getVerificationKey(String kid) {
+        return kid != null ? verificationKeys.get(kid) : null;
+    }
+
+    /**
+     * @return The JWKS document ({@code {"keys": [...]}}) as UTF-8 JSON
+     */
+    public byte[] getJwks() {
+        return jwks.clone();
+    }
+
+    public String getJwksETag() {
+        return jwksETag;
+    }
+
+    private static byte[] renderJwks(Map<String, PublicKey> keys) {
+        List<Map<String, String>> jwkList = new ArrayList<>();
+        keys.forEach((kid, key) -> {
+            ECPublicKey ec = (ECPublicKey) key;
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", "ES256");
+            jwk.put("x", coordinate(ec.getW().getAffineX()));
+            jwk.put("y", coordinate(ec.getW().getAffineY()));
+            jwkList.add(jwk);
+        });
+        try {
+            return new ObjectMapper().writeValueAsString(Map.of("keys", jwkList)).getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot render JWKS", e);
+        }
+    }
+
+    // RFC 7518 6.2.1.2: unsigned big-endian, padded to the field size (32 bytes for P-256)
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package edu.belmont.demo.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Holds one computed value for a short TTL. When the value is stale, the first
+ * caller recomputes it and concurrent callers wait for that same computation
+ * instead of starting their own.
+ */
+final class SingleFlightCache<T> {
+
+    record Snapshot<T>(T value, Instant computedAt) {}
+
+    private final Supplier<T> loader;
+    private final Duration ttl;
+    private final Clock clock;
+    private volatile Snapshot<T> current;
+    private CompletableFuture<Snapshot<T>> inFlight;
+
+    SingleFlightCache(Supplier<T> loader, Duration ttl, Clock clock) {
+        this.loader = loader;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    Snapshot<T> get() {
+        Snapshot<T> snapshot = current;
+        if (snapshot != null && clock.instant().isBefore(snapshot.computedAt().plus(ttl))) {
+            return snapshot;
+        }
+
+        CompletableFuture<Snapshot<T>> future;
+        boolean leader = false;
+        synchronized (this) {
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                leader = true;
+            }
+            future = inFlight;
+        }
+
+        if (leader) {
+            try {
+                Snapshot<T> refreshed = new Snapshot<>(loader.get(), clock.instant());
+                current = refreshed;
+                future.complete(refreshed);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    inFlight = null;
+                }
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    void invalidate() {
+        current = null;
+    }
+}
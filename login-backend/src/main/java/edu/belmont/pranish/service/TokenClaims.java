@@ -0,0 +1,15 @@
+package edu.belmont.demo.service;
+
+import java.time.Instant;
+
+/**
+ * Verified contents of an access token.
+ *
+ * @param subject Username the token was issued to
+ * @param role User role at issue time
+ * @param active Whether the account was active at issue time
+ * @param tokenVersion The user's token version at issue time
+ * @param expiresAt Token expiry
+ */
+public record TokenClaims(String subject, String role, boolean active, int tokenVersion, Instant expiresAt) {
+}
@@ -0,0 +1,107 @@
+package edu.belmont.demo.service;
+
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.repository.UserInvalidationBus;
+import edu.belmont.demo.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads token revocations from MongoDB into {@link TokenVersionRegistry}: once
+ * at startup, so a restart does not accept tokens invalidated before it, and
+ * then every reconcile interval, so a revocation whose
+ * {@link UserInvalidationBus} event was lost is picked up within that interval
+ * instead of staying unknown for a whole token lifetime.
+ * <p>
+ * Each pass reads every revocation of the last token lifetime (served by the
+ * sparse tokensRevokedAt index), so clock skew between the instances that
+ * wrote them does not matter.
+ */
+@Component
+public class TokenRevocationReconciler implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationReconciler.class);
+
+    private final UserRepository userRepository;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final long ttlSeconds;
+    private final long intervalSeconds;
+    private final AtomicLong recovered = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+
+    public TokenRevocationReconciler(
+            UserRepository userRepository,
+            TokenVersionRegistry tokenVersionRegistry,
+            @Value("${auth.jwt.ttlSeconds:900}") long ttlSeconds,
+            @Value("${auth.jwt.revocationReconcileSeconds:${auth.userCache.ttlSeconds:60}}") long intervalSeconds) {
+        this.userRepository = userRepository;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.ttlSeconds = ttlSeconds;
+        this.intervalSeconds = intervalSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reconcile();
+        if (intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::reconcileQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Record every revocation from the last token lifetime.
+     *
+     * @return Number of revocations this instance had not heard of
+     */
+    public int reconcile() {
+        int learned = 0;
+        for (UserDocument user : userRepository.findTokenRevocationsSince(LocalDateTime.now().minusSeconds(ttlSeconds))) {
+            if (tokenVersionRegistry.record(user.getUsername(), user.getTokenVersion(),
+                    user.getTokensRevokedAt().atZone(ZoneId.systemDefault()).toInstant())) {
+                learned++;
+            }
+        }
+        recovered.addAndGet(learned);
+        return learned;
+    }
+
+    /**
+     * Revocations learned from MongoDB rather than from a broadcast (including the startup load).
+     */
+    public long getRecoveredCount() {
+        return recovered.get();
+    }
+
+    private void reconcileQuietly() {
+        try {
+            int learned = reconcile();
+            if (learned > 0) {
+                log.info("Picked up {} token revocations that were not broadcast to this instance", learned);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconcile token revocations, will retry", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,60 @@
+package edu.belmont.demo.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory record of users whose existing tokens were invalidated, e.g. by a
+ * role change or deactivation. A token whose version is below the user's
+ * current version must be refreshed. Entries are only needed for one token
+ * lifetime, after which every older token has expired anyway.
+ */
+public class TokenVersionRegistry {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private record Entry(int version, Instant revokedAt) {}
+
+    private final ConcurrentHashMap<String, Entry> versions = new ConcurrentHashMap<>();
+    private final Duration retention;
+
+    public TokenVersionRegistry(long tokenTtlSeconds) {
+        this.retention = Duration.ofSeconds(tokenTtlSeconds);
+    }
+
+    /**
+     * Record that tokens below {@code version} are no longer valid for a user.
+     *
+     * @return Whether this raised the version known for the user
+     */
+    public boolean record(String username, int version, Instant revokedAt) {
+        Entry entry = new Entry(version, revokedAt);
+        Entry result = versions.merge(username, entry,
+                (current, next) -> next.version() > current.version() ? next : current);
+        if (versions.size() > PRUNE_THRESHOLD) {
+            Instant cutoff = Instant.now().minus(retention);
+            versions.entrySet().removeIf(e -> e.getValue().revokedAt().isBefore(cutoff));
+        }
+        return result == entry;
+    }
+
+    /**
+     * Lowest token version still accepted for a user (0 if never revoked).
+     */
+    public int currentVersion(String username) {
+        Entry entry = versions.get(username);
+        if (entry == null) {
+            return 0;
+        }
+        if (entry.revokedAt().plus(retention).isBefore(Instant.now())) {
+            versions.remove(username, entry);
+            return 0;
+        }
+        return entry.version();
+    }
+
+    public int size() {
+        return versions.size();
+    }
+}
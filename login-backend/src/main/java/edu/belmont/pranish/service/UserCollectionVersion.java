@@ -0,0 +1,129 @@
+package edu.belmont.demo.service;
+
+import edu.belmont.demo.model.UserInvalidation;
+import edu.belmont.demo.repository.ReplicationFence;
+import edu.belmont.demo.repository.UserInvalidationBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter that advances whenever the users collection changes, used to answer
+ * conditional GETs on user lists and stats without querying MongoDB.
+ * <p>
+ * Local writes advance it through {@link UserLookupCache#invalidate}, and writes
+ * on other instances through the {@link UserInvalidationBus} events they
+ * publish. ETags combine a per-process epoch (so two instances never agree on a
+ * version by accident), the counter, and a time window of the user cache TTL,
+ * which bounds how long a lost broadcast can keep a stale 304 alive.
+ * <p>
+ * Last-login writes do not advance it: they are flushed every second under
+ * load and would otherwise defeat both the 304s and the stats cache. The
+ * lastLoginAt column of user lists and the todayLogins count are therefore
+ * refreshed with the time window rather than on every login.
+ * <p>
+ * Callers must take the ETag before reading the data it describes: a write in
+ * between then makes the ETag older than the data, which only costs a 200.
+ * Those reads may go to a secondary; the {@link ReplicationFence} is moved
+ * before the counter, so they never see less than the version they are tagged with.
+ */
+@Component
+public class UserCollectionVersion {
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final AtomicLong version = new AtomicLong();
+    private final long windowMillis;
+    private final Clock clock;
+    private final LongAdder notModified = new LongAdder();
+    private final ReplicationFence replicationFence;
+
+    @Autowired
+    public UserCollectionVersion(UserInvalidationBus invalidationBus, ReplicationFence replicationFence,
+                                 @Value("${auth.userCache.ttlSeconds:60}") long ttlSeconds) {
+        this(ttlSeconds, Clock.systemUTC(), replicationFence);
+        invalidationBus.subscribe(this::advance);
+    }
+
+    UserCollectionVersion(long windowSeconds, Clock clock) {
+        this(windowSeconds, clock, new ReplicationFence());
+    }
+
+    private UserCollectionVersion(long windowSeconds, Clock clock, ReplicationFence replicationFence) {
+        this.windowMillis = Math.max(1, windowSeconds) * 1000;
+        this.clock = clock;
+        this.replicationFence = replicationFence;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Record that the users collection changed.
+     */
+    public void advance() {
+        replicationFence.changed();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Record the change these invalidations describe, unless all of them only
+     * moved last-login times.
+     */
+    public void advance(List<UserInvalidation> invalidations) {
+        if (invalidations.stream().anyMatch(invalidation -> !invalidation.lastLoginOnly())) {
+            advance();
+        }
+    }
+
+    /**
+     * ETag for a representation of the users collection as of now.
+     *
+     * @param resource Name of the endpoint or view
+     * @param parameters Everything else the representation depends on, e.g. query parameters
+     * @return A weak ETag, since the same data may be sent as JSON, CBOR or Smile,
+     *         compressed or not (Tomcat also skips compression for strong ETags)
+     */
+    public String eTag(String resource, Object... parameters) {
+        StringBuilder key = new StringBuilder(epoch)
+                .append('|').append(version.get())
+                .append('|').append(clock.millis() / windowMillis)
+                .append('|').append(resource);
+        for (Object parameter : parameters) {
+            key.append('|').append(parameter);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Whether an If-None-Match header names this ETag, compared weakly as
+     * RFC 9110 requires for GET; counts the match for metrics.
+     */
+    public boolean notModified(String ifNoneMatch, String eTag) {
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        if (ifNoneMatch == null || !ifNoneMatch.contains(opaqueTag)) {
+            return false;
+        }
+        notModified.increment();
+        return true;
+    }
+
+    public long getNotModifiedCount() {
+        return notModified.sum();
+    }
+}
@@ -0,0 +1,124 @@
+package edu.belmont.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads import rows one line at a time, so input of any size is never held in
+ * memory. CSV input needs a header row naming the username and password columns
+ * (role and isActive are optional); quoted fields are supported but may not span
+ * lines. NDJSON input has one object per line with the same field names.
+ */
+abstract class UserImportReader {
+
+    /**
+     * A parsed input row; {@code error} is set when the line itself could not be read.
+     */
+    record Row(int number, String username, String password, String role, String isActive, String error) {}
+
+    private final BufferedReader reader;
+    private int rowNumber;
+
+    private UserImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    static UserImportReader csv(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input is empty");
+        }
+        List<String> columns = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header).stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int username = columns.indexOf("username");
+        int password = columns.indexOf("password");
+        if (username < 0 || password < 0) {
+            throw new IllegalArgumentException("CSV header must contain username and password columns");
+        }
+        int role = columns.indexOf("role");
+        int isActive = columns.indexOf("isactive");
+        return new UserImportReader(reader) {
+            @Override
+            Row parse(int number, String line) {
+                List<String> fields = splitCsv(line);
+                return new Row(number, field(fields, username), field(fields, password),
+                        field(fields, role), field(fields, isActive), null);
+            }
+        };
+    }
+
+    static UserImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new UserImportReader(reader) {
+            @Override
+            Row parse(int number, String line) {
+                try {
+                    JsonNode node = objectMapper.readTree(line);
+                    return new Row(number, text(node, "username"), text(node, "password"),
+                            text(node, "role"), text(node, "isActive"), null);
+                } catch (JsonProcessingException e) {
+                    return new Row(number, null, null, null, null, "Malformed JSON");
+                }
+            }
+        };
+    }
+
+    abstract Row parse(int number, String line);
+
+    /**
+     * @return The next non-blank row, or null at end of input
+     */
+    Row next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                return parse(++rowNumber, line);
+            }
+        }
+        return null;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static String text(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
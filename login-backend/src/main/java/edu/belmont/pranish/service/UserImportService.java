@@ -0,0 +1,231 @@
+package edu.belmont.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.belmont.demo.model.ImportRowResult;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserInvalidation;
+import edu.belmont.demo.repository.UserRepository;
+import edu.belmont.demo.repository.UserRepositoryCustom.InsertFailure;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk user import.
+ * Rows are read as a stream and grouped into batches; each batch is hashed in
+ * parallel on a dedicated pool (separate from the login hashing pool, so an
+ * import cannot starve logins) while the previous batch is being inserted with
+ * one unordered bulk insert. Only one import runs at a time.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    public enum Format { CSV, NDJSON }
+
+    private record PendingUser(int row, String username, String role, boolean active,
+                               CompletableFuture<String> passwordHash) {}
+
+    private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final ExecutorService hashingExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public UserImportService(
+            UserRepository userRepository,
+            UserLookupCache userLookupCache,
+            ObjectMapper objectMapper,
+            @Value("${auth.import.batchSize:1000}") int batchSize,
+            @Value("${auth.import.hashThreads:0}") int hashThreads) {
+        this.userRepository = userRepository;
+        this.userLookupCache = userLookupCache;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.hashingExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "import-bcrypt-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Import users from CSV or NDJSON input.
+     * Rows need a username and password; role defaults to USER and isActive to true.
+     *
+     * @param input Request body
+     * @param format Input format
+     * @return Counts per outcome and the rows that were not created
+     * @throws IllegalArgumentException if the CSV header is missing or incomplete
+     * @throws IllegalStateException if another import is already running
+     */
+    public Map<String, Object> importUsers(InputStream input, Format format) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An import is already running");
+        }
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            UserImportReader rows = format == Format.CSV
+                    ? UserImportReader.csv(reader)
+                    : UserImportReader.ndjson(reader, objectMapper);
+            return importRows(rows);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> importRows(UserImportReader rows) throws IOException {
+        long startedAt = System.nanoTime();
+        List<ImportRowResult> rejected = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int total = 0;
+        int created = 0;
+
+        List<PendingUser> hashing = new ArrayList<>(batchSize);
+        List<PendingUser> inserting = List.of();
+        UserImportReader.Row row;
+        while ((row = rows.next()) != null) {
+            total++;
+            PendingUser user = validate(row, seen, rejected);
+            if (user != null) {
+                hashing.add(user);
+            }
+            if (hashing.size() == batchSize) {
+                // Insert the previous batch while this one is being hashed
+                created += insert(inserting, rejected);
+                inserting = hashing;
+                hashing = new ArrayList<>(batchSize);
+            }
+        }
+        created += insert(inserting, rejected);
+        created += insert(hashing, rejected);
+
+        log.info("Imported {} of {} users in {} ms", created, total, (System.nanoTime() - startedAt) / 1_000_000);
+        rejected.sort((a, b) -> Integer.compare(a.row(), b.row()));
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("total", total);
+        summary.put("created", created);
+        summary.put("duplicates", count(rejected, "duplicate"));
+        summary.put("invalid", count(rejected, "invalid"));
+        summary.put("failed", count(rejected, "failed"));
+        summary.put("rejectedRows", rejected);
+        return summary;
+    }
+
+    private PendingUser validate(UserImportReader.Row row, Set<String> seen, List<ImportRowResult> rejected) {
+        String username = row.username() != null ? row.username().trim() : null;
+        String error = row.error();
+        String role = row.role() == null || row.role().isBlank() ? "USER" : row.role().trim().toUpperCase(Locale.ROOT);
+        String isActive = row.isActive() == null || row.isActive().isBlank() ? "true" : row.isActive().trim();
+        if (error == null && (username == null || username.isEmpty())) {
+            error = "Missing username";
+        } else if (error == null && (row.password() == null || row.password().isEmpty())) {
+            error = "Missing password";
+        } else if (error == null && !role.equals("USER") && !role.equals("ADMIN")) {
+            error = "Role must be USER or ADMIN";
+        } else if (error == null && !isActive.equalsIgnoreCase("true") && !isActive.equalsIgnoreCase("false")) {
+            error = "isActive must be true or false";
+        }
+        if (error != null) {
+            rejected.add(new ImportRowResult(row.number(), username, "invalid", error));
+            return null;
+        }
+        if (!seen.add(username)) {
+            rejected.add(new ImportRowResult(row.number(), username, "duplicate", "Username repeated in input"));
+            return null;
+        }
+        String password = row.password();
+        CompletableFuture<String> hash = CompletableFuture.supplyAsync(
+                () -> BCrypt.hashpw(password, BCrypt.gensalt()), hashingExecutor);
+        return new PendingUser(row.number(), username, role, Boolean.parseBoolean(isActive), hash);
+    }
+
+    private int insert(List<PendingUser> batch, List<ImportRowResult> rejected) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<PendingUser> hashed = new ArrayList<>(batch.size());
+        List<UserDocument> documents = new ArrayList<>(batch.size());
+        for (PendingUser user : batch) {
+            String passwordHash;
+            try {
+                passwordHash = user.passwordHash().join();
+            } catch (RuntimeException e) {
+                rejected.add(new ImportRowResult(user.row(), user.username(), "failed", "Password hashing failed"));
+                continue;
+            }
+            UserDocument document = new UserDocument(user.username(), passwordHash, user.role());
+            document.setActive(user.active());
+            document.setCreatedAt(now);
+            document.setUpdatedAt(now);
+            hashed.add(user);
+            documents.add(document);
+        }
+
+        List<InsertFailure> failures;
+        try {
+            failures = userRepository.insertUsers(documents);
+        } catch (RuntimeException e) {
+            log.warn("Import batch of {} users failed", documents.size(), e);
+            for (PendingUser user : hashed) {
+                rejected.add(new ImportRowResult(user.row(), user.username(), "failed", "Database write failed"));
+            }
+            return 0;
+        }
+        Set<Integer> failed = new HashSet<>();
+        for (InsertFailure failure : failures) {
+            PendingUser user = hashed.get(failure.index());
+            failed.add(failure.index());
+            rejected.add(failure.duplicateKey()
+                    ? new ImportRowResult(user.row(), user.username(), "duplicate", "Username already exists")
+                    : new ImportRowResult(user.row(), user.username(), "failed", failure.message()));
+        }
+        List<UserInvalidation> created = new ArrayList<>(documents.size() - failures.size());
+        for (int i = 0; i < hashed.size(); i++) {
+            if (!failed.contains(i)) {
+                created.add(UserInvalidation.documentOnly(hashed.get(i).username()));
+            }
+        }
+        // Nothing is cached for new users, but lists and stats here and elsewhere must see them
+        if (!created.isEmpty()) {
+            userLookupCache.invalidate(created);
+        }
+        return created.size();
+    }
+
+    private static long count(List<ImportRowResult> results, String status) {
+        return results.stream().filter(result -> result.status().equals(status)).count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingExecutor.shutdownNow();
+    }
+}
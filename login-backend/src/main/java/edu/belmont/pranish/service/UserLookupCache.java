@@ -0,0 +1,113 @@
+package edu.belmont.demo.service;
+
+import edu.belmont.demo.model.UserCredentials;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserInvalidation;
+import edu.belmont.demo.repository.ReactiveUserRepository;
+import edu.belmont.demo.repository.UserInvalidationBus;
+import edu.belmont.demo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Near-cache in front of the per-username reads in {@link UserRepository}.
+ * Writes invalidate the local entries and broadcast the invalidation to other
+ * instances through {@link UserInvalidationBus}; the TTL bounds staleness if a
+ * broadcast is missed. Every write to the users collection is expected to come
+ * through here, including inserts, since {@link UserCollectionVersion} relies on it.
+ */
+@Component
+public class UserLookupCache {
+
+    private final UserRepository userRepository;
+    private final UserInvalidationBus invalidationBus;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final UserCollectionVersion collectionVersion;
+    private final NearCache<UserCredentials> credentials;
+    private final NearCache<UserDocument> documents;
+
+    public UserLookupCache(
+            UserRepository userRepository,
+            UserInvalidationBus invalidationBus,
+            TokenVersionRegistry tokenVersionRegistry,
+            UserCollectionVersion collectionVersion,
+            @Value("${auth.userCache.maxSize:10000}") int maxSize,
+            @Value("${auth.userCache.ttlSeconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.invalidationBus = invalidationBus;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.collectionVersion = collectionVersion;
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.credentials = new NearCache<>(maxSize, ttl, Clock.systemUTC());
+        this.documents = new NearCache<>(maxSize, ttl, Clock.systemUTC());
+        invalidationBus.subscribe(this::applyRemote);
+    }
+
+    public Optional<UserCredentials> findCredentials(String username) {
+        return Optional.ofNullable(credentials.get(username,
+                key -> userRepository.findCredentialsByUsername(key).orElse(null)));
+    }
+
+    /**
+     * {@link #findCredentials(String)} for the reactive stack: the same entries,
+     * with a miss read through the reactive repository instead of blocking.
+     */
+    public Mono<UserCredentials> findCredentials(String username, ReactiveUserRepository reactiveRepository) {
+        return credentials.getAsync(username, reactiveRepository::findCredentialsByUsername);
+    }
+
+    public Optional<UserDocument> findByUsername(String username) {
+        return Optional.ofNullable(documents.get(username,
+                key -> userRepository.findByUsername(key).orElse(null)));
+    }
+
+    /**
+     * Drop cached entries for these users here and on every other instance,
+     * and advance the collection version that conditional GETs are checked against
+     * (unless only last-login times changed).
+     */
+    public void invalidate(List<UserInvalidation> invalidations) {
+        evict(invalidations);
+        collectionVersion.advance(invalidations);
+        invalidationBus.publish(invalidations);
+    }
+
+    private void applyRemote(List<UserInvalidation> invalidations) {
+        evict(invalidations);
+        for (UserInvalidation invalidation : invalidations) {
+            if (invalidation.tokenVersion() != null) {
+                tokenVersionRegistry.record(invalidation.username(), invalidation.tokenVersion(), invalidation.revokedAt());
+            }
+        }
+    }
+
+    private void evict(List<UserInvalidation> invalidations) {
+        List<String> all = invalidations.stream().map(UserInvalidation::username).toList();
+        documents.invalidate(all);
+        List<String> credentialChanges = invalidations.stream()
+                .filter(UserInvalidation::credentialsChanged)
+                .map(UserInvalidation::username)
+                .toList();
+        if (!credentialChanges.isEmpty()) {
+            credentials.invalidate(credentialChanges);
+        }
+    }
+
+    public long getHits(boolean credentialCache) {
+        return (credentialCache ? credentials : documents).hits();
+    }
+
+    public long getMisses(boolean credentialCache) {
+        return (credentialCache ? credentials : documents).misses();
+    }
+
+    public int getSize(boolean credentialCache) {
+        return (credentialCache ? credentials : documents).size();
+    }
+}
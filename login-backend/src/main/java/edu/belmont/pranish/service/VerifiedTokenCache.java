@@ -0,0 +1,82 @@
+package edu.belmont.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of tokens that already passed signature verification.
+ * Entries are keyed by a SHA-256 digest of the compact token so raw tokens are
+ * never held in memory, and an entry is never returned once its expiry has passed.
+ * Callers still apply per-user revocation checks to cached claims.
+ */
+final class VerifiedTokenCache {
+
+    private final int maxSize;
+    private final Map<String, TokenClaims> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenClaims> eldest) {
+                return size() > VerifiedTokenCache.this.maxSize;
+            }
+        };
+    }
+
+    TokenClaims get(String token, Instant now) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        String key = digest(token);
+        synchronized (entries) {
+            TokenClaims entry = entries.get(key);
+            if (entry != null && now.isBefore(entry.expiresAt())) {
+                hits.incrementAndGet();
+                return entry;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    void put(String token, TokenClaims entry) {
+        if (maxSize <= 0 || entry.expiresAt() == null) {
+            return;
+        }
+        String key = digest(token);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    long hits() { return hits.get(); }
+
+    long misses() { return misses.get(); }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
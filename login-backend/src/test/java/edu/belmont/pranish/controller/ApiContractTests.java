@@ -0,0 +1,601 @@
+package edu.belmont.demo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.internal.MongoClientImpl;
+import com.mongodb.connection.NettyTransportSettings;
+import de.bwaldvogel.mongo.MongoServer;
+import edu.belmont.demo.SimpleLoginBackendApplication;
+import edu.belmont.demo.repository.PipelineUpdateBackend;
+import edu.belmont.demo.repository.ReadRouteMonitor;
+import edu.belmont.demo.service.LastLoginWriteBehind;
+import edu.belmont.demo.service.UserLookupCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HTTP contract of the API, run once per web stack against the seeded users.
+ * Each subclass boots the application on a random port with its own database
+ * on a shared in-memory wire-protocol server.
+ */
+@SpringBootTest(classes = SimpleLoginBackendApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+abstract class ApiContractTests {
+
+    private static final MongoServer MONGO = new MongoServer(new PipelineUpdateBackend());
+    private static final InetSocketAddress MONGO_ADDRESS = MONGO.bind();
+
+    @LocalServerPort
+    private int port;
+
+    // Admin tokens per running application, so tests do not spend the admin's login attempts
+    private static final Map<Integer, String> ADMIN_TOKENS = new ConcurrentHashMap<>();
+
+    @Autowired
+    private LastLoginWriteBehind lastLoginWriteBehind;
+
+    @Autowired
+    private ReadRouteMonitor readRouteMonitor;
+
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient;
+
+    private WebTestClient client;
+    private WebTestClient adminClient;
+
+    static void registerMongo(DynamicPropertyRegistry registry, String database) {
+        registry.add("spring.data.mongodb.uri",
+                () -> "mongodb://" + MONGO_ADDRESS.getHostString() + ":" + MONGO_ADDRESS.getPort() + "/" + database);
+        // The in-memory server has no capped collections, which the cache invalidation bus needs
+        registry.add("auth.userCache.broadcast.enabled", () -> "false");
+        // Compress even the small seeded lists
+        registry.add("server.compression.min-response-size", () -> "1B");
+        // Keep stats cached for the whole of a test, so a recomputation means the cache was dropped
+        registry.add("auth.stats.cacheTtlMs", () -> "60000");
+        // Graceful shutdown would wait for the test clients' pooled keep-alive connections
+        registry.add("server.shutdown", () -> "immediate");
+    }
+
+    @BeforeEach
+    void setUpClient() {
+        client = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + port)
+                .responseTimeout(Duration.ofSeconds(30))
+                .build();
+        adminClient = client.mutate()
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKENS.computeIfAbsent(port, p -> login("admin2")))
+                .build();
+    }
+
+    @Test
+    void loginIssuesTokenAccepted() {
+        String token = login("admin");
+
+        client.get().uri("/api/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo("admin")
+                .jsonPath("$.role").isEqualTo("ADMIN");
+    }
+
+    @Test
+    void repeatedLoginsReadCredentialsFromTheNearCache() {
+        login("admin");
+        long hits = userLookupCache.getHits(true);
+        long misses = userLookupCache.getMisses(true);
+
+        login("admin");
+
+        assertTrue(userLookupCache.getHits(true) > hits);
+        assertEquals(misses, userLookupCache.getMisses(true));
+    }
+
+    @Test
+    void loginRejectsBadCredentials() {
+        loginRequest("admin", "wrong").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.error").isEqualTo("Invalid credentials");
+        loginRequest("nobody", "password").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.error").isEqualTo("Invalid credentials");
+    }
+
+    @Test
+    void loginRejectsDeactivatedAccount() {
+        loginRequest("testuser4", "password").exchange()
+                .expectStatus().isForbidden()
+                .expectBody().jsonPath("$.error").isEqualTo("Account is deactivated");
+    }
+
+    @Test
+    void repeatedAttemptsOnOneUsernameAreThrottled() {
+        for (int i = 0; i < 5; i++) {
+            loginRequest("throttled", "password").exchange().expectStatus().isUnauthorized();
+        }
+        loginRequest("throttled", "password").exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().exists(HttpHeaders.RETRY_AFTER)
+                .expectBody().jsonPath("$.error").isEqualTo("Too many login attempts, please retry later");
+    }
+
+    @Test
+    void validUserCanLogInWhileFailuresDrainTheBucket() {
+        // More attempts than the burst of 5, but only the failures count
+        for (int i = 0; i < 3; i++) {
+            loginRequest("testuser1", "password").exchange().expectStatus().isOk();
+            loginRequest("testuser1", "wrong").exchange().expectStatus().isUnauthorized();
+        }
+        loginRequest("testuser1", "password").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void refreshTokenRotatesAndDetectsReuse() {
+        String first = refreshToken(loginRequest("testuser1", "password"));
+
+        Map<?, ?> refreshed = refreshRequest(first).exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult().getResponseBody();
+        String second = (String) refreshed.get("refreshToken");
+        assertNotNull(second);
+        client.get().uri("/api/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshed.get("token"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.username").isEqualTo("testuser1");
+
+        // Replaying the consumed token also revokes the one issued in its place
+        refreshRequest(first).exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.error").isEqualTo("Invalid refresh token");
+        refreshRequest(second).exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void logoutRevokesRefreshToken() {
+        String token = refreshToken(loginRequest("testuser1", "password"));
+
+        client.post().uri("/api/logout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("refreshToken", token))
+                .exchange()
+                .expectStatus().isNoContent();
+        refreshRequest(token).exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void jwksIsCacheableByETag() {
+        String eTag = client.get().uri("/.well-known/jwks.json").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().value(HttpHeaders.CACHE_CONTROL, value -> assertTrue(value.contains("max-age")))
+                .expectBody(Map.class).value(body -> assertNotNull(body.get("keys")))
+                .returnResult().getResponseHeaders().getETag();
+        assertNotNull(eTag);
+
+        client.get().uri("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, eTag).exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void profileRequiresToken() {
+        client.get().uri("/api/profile").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.error").isEqualTo("Unauthorized");
+        client.get().uri("/api/profile").header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token").exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void adminEndpointsRequireAdminToken() {
+        client.get().uri("/api/admin/stats").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.error").isEqualTo("Unauthorized");
+        client.get().uri("/api/admin/stats").header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.error").isEqualTo("Invalid token");
+        client.patch().uri("/api/admin/users/0123456789abcdef01234567")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + login("user"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("role", "ADMIN"))
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody().jsonPath("$.error").isEqualTo("Admin access required");
+    }
+
+    @Test
+    void metricsRequireAdminTokenButHealthIsPublic() {
+        // Answered by the health endpoint, whatever the in-memory server's health
+        client.get().uri("/actuator/health").exchange().expectBody().jsonPath("$.status").exists();
+        client.get().uri("/actuator/metrics").exchange().expectStatus().isUnauthorized();
+        client.get().uri("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, "Bearer " + login("user")).exchange()
+                .expectStatus().isForbidden();
+        adminClient.get().uri("/actuator/metrics").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void usersAreListedAsJsonAndNdjson() {
+        String token = login("user");
+
+        client.get().uri("/api/users").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").value(greaterThanOrEqualTo(8))
+                .jsonPath("$.users[*].username").value(hasItem("admin2"));
+
+        String ndjson = client.get().uri("/api/users")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .accept(MediaType.parseMediaType("application/x-ndjson"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith("application/x-ndjson")
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertNotNull(ndjson);
+        List<String> lines = ndjson.lines().toList();
+        assertTrue(lines.size() >= 8);
+        assertTrue(lines.contains("{\"username\":\"testuser1\",\"role\":\"USER\"}"));
+
+        String unauthorized = client.get().uri("/api/users")
+                .accept(MediaType.parseMediaType("application/x-ndjson"))
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertEquals("{\"error\":\"Unauthorized\"}", unauthorized.trim());
+    }
+
+    @Test
+    void listsAreEncodedAsRequestedAndCompressed() throws Exception {
+        byte[] cbor = adminClient.get().uri("/api/admin/users?size=3")
+                .accept(MediaType.parseMediaType("application/cbor"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/cbor")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        Map<?, ?> page = new ObjectMapper(new CBORFactory()).readValue(cbor, Map.class);
+        Map<?, ?> user = (Map<?, ?>) ((List<?>) page.get("users")).get(0);
+        assertNotNull(user.get("username"));
+        assertFalse(user.containsKey("passwordHash"));
+
+        byte[] smile = adminClient.get().uri("/api/users")
+                .accept(MediaType.parseMediaType("application/x-jackson-smile"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-jackson-smile")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        Map<?, ?> users = new ObjectMapper(new SmileFactory()).readValue(smile, Map.class);
+        assertEquals(((List<?>) users.get("users")).size(), ((Number) users.get("count")).intValue());
+
+        // WebTestClient's connector decompresses and drops Content-Encoding, so use a plain client
+        HttpResponse<byte[]> gzipped = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/admin/users?size=5"))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKENS.get(port))
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, gzipped.statusCode());
+        assertEquals("gzip", gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertEquals(5, ((List<?>) new ObjectMapper().readValue(in, Map.class).get("users")).size());
+        }
+    }
+
+    @Test
+    void adminUsersArePagedByOffsetAndCursor() {
+        adminClient.get().uri("/api/admin/users?size=3&page=0&query=testuser&match=prefix")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.users.length()").isEqualTo(3)
+                .jsonPath("$.currentPage").isEqualTo(0)
+                .jsonPath("$.totalItems").isEqualTo(5)
+                .jsonPath("$.totalPages").isEqualTo(2)
+                .jsonPath("$.hasNext").isEqualTo(true)
+                .jsonPath("$.hasPrevious").isEqualTo(false)
+                .jsonPath("$.users[0].username").exists()
+                .jsonPath("$.users[0].active").exists()
+                .jsonPath("$.users[0].passwordHash").doesNotExist()
+                .jsonPath("$.users[0].usernameGrams").doesNotExist();
+
+        Set<String> seen = new HashSet<>();
+        String cursor = "";
+        for (int pages = 0; cursor != null; pages++) {
+            assertTrue(pages < 10, "cursor paging did not terminate");
+            Map<?, ?> page = adminClient.get().uri("/api/admin/users?size=2&query=testuser&includeTotal=true&after=" + cursor)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(Map.class).returnResult().getResponseBody();
+            assertEquals(5, ((Number) page.get("totalItems")).intValue());
+            for (Object user : (List<?>) page.get("users")) {
+                assertTrue(seen.add((String) ((Map<?, ?>) user).get("username")));
+            }
+            cursor = (String) page.get("nextCursor");
+            assertEquals(cursor != null, page.get("hasNext"));
+        }
+        assertEquals(Set.of("testuser1", "testuser2", "testuser3", "testuser4", "testuser5"), seen);
+
+        adminClient.get().uri("/api/admin/users?after=not-a-cursor")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Invalid cursor");
+    }
+
+    @Test
+    void statsCountSeededUsers() {
+        adminClient.get().uri("/api/admin/stats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalUsers").value(greaterThanOrEqualTo(8))
+                .jsonPath("$.adminUsers").value(greaterThanOrEqualTo(2))
+                .jsonPath("$.inactiveUsers").value(greaterThanOrEqualTo(2))
+                .jsonPath("$.computedAt").exists()
+                .jsonPath("$.ageMillis").exists();
+    }
+
+    @Test
+    void versionedAdminReadsAreRoutedToSecondariesAndSeeTheLatestWrite() {
+        lastLoginWriteBehind.flush();
+        EntityExchangeResult<Map> before = adminClient.get().uri("/api/admin/stats").exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult();
+        long totalUsers = ((Number) before.getResponseBody().get("totalUsers")).longValue();
+
+        // A write, then polls that a secondary without the write would answer with a stale 304 or stale rows;
+        // on a replica set the replication fence makes them wait for it, on this standalone there is nothing to wait for
+        adminClient.post().uri("/api/admin/users/import")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue("username,password,role\nversioned1,secret,USER\n")
+                .exchange()
+                .expectStatus().isOk();
+        long routed = readRouteMonitor.getReadCount("secondary", "standalone");
+        adminClient.get().uri("/api/admin/stats").header(HttpHeaders.IF_NONE_MATCH, before.getResponseHeaders().getETag())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.totalUsers").isEqualTo((int) totalUsers + 1);
+        assertEquals(routed + 1, readRouteMonitor.getReadCount("secondary", "standalone"));
+
+        adminClient.get().uri("/api/admin/users?query=versioned1&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.users[0].username").isEqualTo("versioned1");
+        assertEquals(routed + 2, readRouteMonitor.getReadCount("secondary", "standalone"));
+
+        // Cursor page with its total: a find and a count
+        adminClient.get().uri("/api/admin/users?query=versioned&match=prefix&after=&size=1&includeTotal=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.totalItems").isEqualTo(1);
+        assertEquals(routed + 4, readRouteMonitor.getReadCount("secondary", "standalone"));
+    }
+
+    @Test
+    void onlyTheReactiveMongoClientRunsOnNetty() {
+        assertNull(((MongoClientImpl) mongoClient).getSettings().getTransportSettings());
+        assertInstanceOf(NettyTransportSettings.class,
+                ((com.mongodb.reactivestreams.client.internal.MongoClientImpl) reactiveMongoClient)
+                        .getSettings().getTransportSettings());
+    }
+
+    @Test
+    void adminPollsAreAnsweredWithNotModifiedUntilUsersChange() {
+        // Last-login writes from earlier logins also change the users, and would land mid-test
+        lastLoginWriteBehind.flush();
+        String statsETag = adminClient.get().uri("/api/admin/stats").exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.CACHE_CONTROL, value -> assertTrue(value.contains("no-cache")))
+                .expectBody(Map.class).returnResult().getResponseHeaders().getETag();
+        String usersETag = adminClient.get().uri("/api/admin/users?size=2").exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult().getResponseHeaders().getETag();
+        assertNotNull(statsETag);
+        assertNotNull(usersETag);
+
+        adminClient.get().uri("/api/admin/stats").header(HttpHeaders.IF_NONE_MATCH, statsETag).exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, statsETag)
+                .expectBody().isEmpty();
+        adminClient.get().uri("/api/admin/users?size=2").header(HttpHeaders.IF_NONE_MATCH, usersETag).exchange()
+                .expectStatus().isNotModified();
+        // Same collection version, different page
+        adminClient.get().uri("/api/admin/users?size=3").header(HttpHeaders.IF_NONE_MATCH, usersETag).exchange()
+                .expectStatus().isOk();
+
+        adminClient.patch().uri("/api/admin/users/" + userId("testuser5"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("isActive", false))
+                .exchange()
+                .expectStatus().isOk();
+
+        String newStatsETag = adminClient.get().uri("/api/admin/stats").header(HttpHeaders.IF_NONE_MATCH, statsETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult().getResponseHeaders().getETag();
+        assertNotEquals(statsETag, newStatsETag);
+        adminClient.get().uri("/api/admin/users?size=2").header(HttpHeaders.IF_NONE_MATCH, usersETag).exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void loginsBetweenStatsPollsKeepTheCachedStatsAndETag() {
+        lastLoginWriteBehind.flush();
+        EntityExchangeResult<Map> first = adminClient.get().uri("/api/admin/stats").exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult();
+        String eTag = first.getResponseHeaders().getETag();
+
+        // Different users, so the per-username login rate limit is not reached
+        for (String username : List.of("user", "testuser1")) {
+            login(username);
+            lastLoginWriteBehind.flush();
+
+            adminClient.get().uri("/api/admin/stats").header(HttpHeaders.IF_NONE_MATCH, eTag).exchange()
+                    .expectStatus().isNotModified();
+            EntityExchangeResult<Map> poll = adminClient.get().uri("/api/admin/stats").exchange()
+                    .expectStatus().isOk()
+                    .expectBody(Map.class).returnResult();
+            assertEquals(eTag, poll.getResponseHeaders().getETag());
+            assertEquals(first.getResponseBody().get("computedAt"), poll.getResponseBody().get("computedAt"));
+        }
+    }
+
+    @Test
+    void roleChangeRevokesExistingTokens() {
+        String oldToken = login("testuser2");
+        String id = userId("testuser2");
+
+        adminClient.patch().uri("/api/admin/users/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("role", "ADMIN"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo("testuser2")
+                .jsonPath("$.role").isEqualTo("ADMIN");
+
+        client.get().uri("/api/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + oldToken)
+                .exchange()
+                .expectStatus().isUnauthorized();
+        client.get().uri("/api/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + login("testuser2"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.role").isEqualTo("ADMIN");
+
+        adminClient.patch().uri("/api/admin/users/0123456789abcdef01234567")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("role", "USER"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void bulkUpdateSkipsInvalidEntries() {
+        String id = userId("testuser3");
+
+        adminClient.patch().uri("/api/admin/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(Map.of("id", id, "isActive", false), Map.of("id", "bad", "role", "USER")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.requested").isEqualTo(2)
+                .jsonPath("$.modified").isEqualTo(1)
+                .jsonPath("$.skipped[0]").isEqualTo("bad");
+
+        loginRequest("testuser3", "password").exchange().expectStatus().isForbidden();
+
+        List<Map<String, Object>> tooMany = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            tooMany.add(Map.of("id", id, "isActive", true));
+        }
+        adminClient.patch().uri("/api/admin/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(tooMany)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void importCreatesUsersFromCsv() {
+        String csv = "username,password,role\nimported1,secret,ADMIN\nadmin,secret,USER\n,secret,USER\n";
+
+        adminClient.post().uri("/api/admin/users/import")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue(csv)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.total").isEqualTo(3)
+                .jsonPath("$.created").isEqualTo(1)
+                .jsonPath("$.duplicates").isEqualTo(1)
+                .jsonPath("$.invalid").isEqualTo(1);
+
+        loginRequest("imported1", "secret").exchange().expectStatus().isOk();
+
+        adminClient.post().uri("/api/admin/users/import")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue("name,secret\nx,y\n")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                .expectBody().jsonPath("$.error").exists();
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> loginRequest(String username, String password) {
+        return client.post().uri("/api/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", username, "password", password));
+    }
+
+    private String login(String username) {
+        Map<?, ?> body = loginRequest(username, "password").exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult().getResponseBody();
+        String token = (String) body.get("token");
+        assertFalse(token == null || token.isBlank());
+        return token;
+    }
+
+    private String refreshToken(WebTestClient.RequestHeadersSpec<?> loginRequest) {
+        Map<?, ?> body = loginRequest.exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult().getResponseBody();
+        String token = (String) body.get("refreshToken");
+        assertFalse(token == null || token.isBlank());
+        return token;
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> refreshRequest(String refreshToken) {
+        return client.post().uri("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("refreshToken", refreshToken));
+    }
+
+    private String userId(String username) {
+        Map<?, ?> page = adminClient.get().uri("/api/admin/users?match=prefix&query=" + username)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult().getResponseBody();
+        return (String) ((Map<?, ?>) ((List<?>) page.get("users")).get(0)).get("id");
+    }
+}
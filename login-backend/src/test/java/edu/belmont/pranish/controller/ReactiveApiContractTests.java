@@ -0,0 +1,17 @@
+package edu.belmont.demo.controller;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * API contract on WebFlux with the reactive Mongo driver.
+ */
+@TestPropertySource(properties = "spring.main.web-application-type=reactive")
+class ReactiveApiContractTests extends ApiContractTests {
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registerMongo(registry, "reactive_contract_tests");
+    }
+}
@@ -0,0 +1,17 @@
+package edu.belmont.demo.controller;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * API contract on Spring MVC with the blocking Mongo driver.
+ */
+@TestPropertySource(properties = "spring.main.web-application-type=servlet")
+class ServletApiContractTests extends ApiContractTests {
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registerMongo(registry, "servlet_contract_tests");
+    }
+}
@@ -0,0 +1,133 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.belmont.demo.model.UserCredentials;
+import edu.belmont.demo.model.UserDocument;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Microbenchmark of the Mongo work done per successful login, comparing the
+ * original find + find + save sequence with the projected credential lookup.
+ * Runs against an in-memory wire-protocol server and counts round trips and
+ * reply bytes with a driver CommandListener.
+ */
+class LoginLookupBenchmarkTests {
+
+    private static final int LOGINS = 200;
+    private static final int LAST_LOGIN_BATCH = 100;
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private MongoServer server;
+    private MongoClient client;
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        String uri = "mongodb://" + toAddress(server.bind());
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandSucceeded(CommandSucceededEvent event) {
+                roundTrips.incrementAndGet();
+                bytesRead.addAndGet(sizeOf(event.getResponse()));
+            }
+        };
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .addCommandListener(listener)
+                .build());
+        MongoTemplate template = new MongoTemplate(client, "login_benchmark");
+        userRepository = new MongoRepositoryFactory(template).getRepository(UserRepository.class,
+                RepositoryFragments.just(new UserRepositoryCustomImpl(template, new SecondaryReads(true, 90), new ReplicationFence())));
+
+        UserDocument user = new UserDocument("student", BCrypt.hashpw("password", BCrypt.gensalt(4)), "USER");
+        user.setLastLoginAt(LocalDateTime.now().minusDays(1));
+        userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void projectedLookupHalvesRoundTripsAndShrinksReads() {
+        roundTrips.set(0);
+        bytesRead.set(0);
+        for (int i = 0; i < LOGINS; i++) {
+            // Original flow: validateCredentials() and updateLastLogin() each load the full document
+            userRepository.findByUsername("student").orElseThrow();
+            UserDocument user = userRepository.findByUsername("student").orElseThrow();
+            user.setLastLoginAt(LocalDateTime.now());
+            userRepository.save(user);
+        }
+        double beforeTrips = (double) roundTrips.get() / LOGINS;
+        double beforeBytes = (double) bytesRead.get() / LOGINS;
+
+        roundTrips.set(0);
+        bytesRead.set(0);
+        for (int i = 0; i < LOGINS; i++) {
+            UserCredentials credentials = userRepository.findCredentialsByUsername("student").orElseThrow();
+            if (i % LAST_LOGIN_BATCH == LAST_LOGIN_BATCH - 1) {
+                // Write-behind flush, amortised across the batch
+                userRepository.bulkUpdateLastLogin(Map.of(credentials.id(), LocalDateTime.now()));
+            }
+        }
+        double afterTrips = (double) roundTrips.get() / LOGINS;
+        double afterBytes = (double) bytesRead.get() / LOGINS;
+
+        System.out.printf("Per login  before: %.2f round trips, %.0f bytes read%n", beforeTrips, beforeBytes);
+        System.out.printf("Per login  after:  %.2f round trips, %.0f bytes read%n", afterTrips, afterBytes);
+
+        assertEquals(3.0, beforeTrips);
+        assertTrue(afterTrips < 1.1, "expected a single lookup per login");
+        assertTrue(afterBytes < beforeBytes / 2, "expected projected reads to be less than half the size");
+    }
+
+    @Test
+    void projectionReturnsOnlyLoginFields() {
+        UserCredentials credentials = userRepository.findCredentialsByUsername("student").orElseThrow();
+
+        assertTrue(credentials.id() != null && credentials.passwordHash().startsWith("$2"));
+        assertEquals("USER", credentials.role());
+        assertTrue(credentials.isActive());
+    }
+
+    private static long sizeOf(BsonDocument document) {
+        if (document instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        return new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().remaining();
+    }
+
+    private static String toAddress(InetSocketAddress address) {
+        return address.getHostString() + ":" + address.getPort();
+    }
+}
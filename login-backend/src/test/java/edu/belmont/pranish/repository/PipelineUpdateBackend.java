@@ -0,0 +1,82 @@
+package edu.belmont.demo.repository;
+
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import de.bwaldvogel.mongo.bson.Document;
+import io.netty.channel.Channel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory backend that also accepts aggregation-pipeline updates, which
+ * mongo-java-server does not implement. The matched document is run through
+ * the pipeline with the aggregate command and written back as a replacement,
+ * so findAndModify and bulk updates still return what a real server would.
+ * Only single-document updates without upsert are supported, and unlike a
+ * real server the in-memory $addFields lets a field see the ones set before it.
+ */
+public class PipelineUpdateBackend extends MemoryBackend {
+
+    @Override
+    public Document handleCommand(Channel channel, String databaseName, String command, Document query) {
+        if (command.equalsIgnoreCase("findAndModify") && query.get("update") instanceof List<?> pipeline) {
+            Document rewritten = new Document(query);
+            Document replacement = apply(channel, databaseName, collection(query), (Document) query.get("query"), pipeline);
+            if (replacement != null) {
+                rewritten.put("query", new Document("_id", replacement.get("_id")));
+                rewritten.put("update", replacement);
+            } else {
+                rewritten.put("update", new Document());
+            }
+            return super.handleCommand(channel, databaseName, command, rewritten);
+        }
+        if (command.equalsIgnoreCase("update")) {
+            List<Document> statements = new ArrayList<>();
+            for (Object statement : (List<?>) query.get("updates")) {
+                statements.add(rewrite(channel, databaseName, collection(query), (Document) statement));
+            }
+            Document rewritten = new Document(query);
+            rewritten.put("updates", statements);
+            return super.handleCommand(channel, databaseName, command, rewritten);
+        }
+        return super.handleCommand(channel, databaseName, command, query);
+    }
+
+    // The command name is the first key, and its value the collection
+    private static String collection(Document command) {
+        return (String) command.get(command.keySet().iterator().next());
+    }
+
+    private Document rewrite(Channel channel, String databaseName, String collection, Document statement) {
+        if (!(statement.get("u") instanceof List<?> pipeline)) {
+            return statement;
+        }
+        Document rewritten = new Document(statement);
+        Document replacement = apply(channel, databaseName, collection, (Document) statement.get("q"), pipeline);
+        if (replacement != null) {
+            rewritten.put("q", new Document("_id", replacement.get("_id")));
+            rewritten.put("u", replacement);
+        } else {
+            rewritten.put("u", new Document());
+        }
+        return rewritten;
+    }
+
+    // The first document matching the filter after the pipeline, or null if none matches
+    private Document apply(Channel channel, String databaseName, String collection, Document filter, List<?> pipeline) {
+        List<Object> stages = new ArrayList<>();
+        stages.add(new Document("$match", filter));
+        stages.add(new Document("$limit", 1));
+        for (Object stage : pipeline) {
+            // $set is an alias of $addFields that the in-memory server does not know
+            Document set = (Document) ((Document) stage).get("$set");
+            stages.add(set != null ? new Document("$addFields", set) : stage);
+        }
+        Document aggregate = new Document("aggregate", collection)
+                .append("pipeline", stages)
+                .append("cursor", new Document());
+        Document cursor = (Document) super.handleCommand(channel, databaseName, "aggregate", aggregate).get("cursor");
+        List<?> batch = (List<?>) cursor.get("firstBatch");
+        return batch.isEmpty() ? null : (Document) batch.get(0);
+    }
+}
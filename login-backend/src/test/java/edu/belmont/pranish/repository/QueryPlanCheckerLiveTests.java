@@ -0,0 +1,86 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import edu.belmont.demo.model.UserDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link QueryPlanChecker} against a real MongoDB with the declared
+ * indexes, which the in-memory server used elsewhere cannot explain. Only runs
+ * when a URI is given:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=QueryPlanCheckerLiveTests \
+ *     -Dbenchmark.mongo.uri=mongodb://localhost:27017
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.mongo.uri", matches = ".+")
+class QueryPlanCheckerLiveTests {
+
+    private static final String DATABASE = "query_plan_checker_live_tests";
+    private static final int USERS = 1000;
+
+    private static MongoClient client;
+    private static MongoTemplate template;
+
+    @BeforeAll
+    static void seed() {
+        client = MongoClients.create(System.getProperty("benchmark.mongo.uri"));
+        template = new MongoTemplate(client, DATABASE);
+        template.getDb().drop();
+        IndexOperations indexes = template.indexOps(UserDocument.class);
+        new MongoPersistentEntityIndexResolver(template.getConverter().getMappingContext())
+                .resolveIndexFor(UserDocument.class)
+                .forEach(indexes::createIndex);
+        List<UserDocument> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new UserDocument((i % 10 == 0 ? "Teacher" : "Student") + i,
+                    "$2a$10$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234", i % 10 == 0 ? "ADMIN" : "USER"));
+        }
+        template.insertAll(users);
+    }
+
+    @AfterAll
+    static void drop() {
+        template.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void everyUserQueryUsesAnIndex() {
+        assertEquals(List.of(), new QueryPlanChecker(template, "fail").findFullScans());
+        assertDoesNotThrow(() -> new QueryPlanChecker(template, "fail").checkAtStartup());
+    }
+
+    @Test
+    void flagsQueriesThatReadTheWholeCollection() {
+        MongoCollection<Document> users = template.getCollection(template.getCollectionName(UserDocument.class));
+
+        assertTrue(QueryPlanChecker.planProblems(users.find(new Document("passwordHash", "x"))
+                .explain(ExplainVerbosity.QUERY_PLANNER)).contains("COLLSCAN"));
+        assertTrue(QueryPlanChecker.planProblems(users.find().sort(new Document("_id", 1))
+                .explain(ExplainVerbosity.QUERY_PLANNER)).contains("IXSCAN of every _id"));
+        assertTrue(QueryPlanChecker.planProblems(users.find().sort(new Document("passwordHash", 1))
+                .explain(ExplainVerbosity.QUERY_PLANNER)).contains("SORT in memory"));
+
+        assertEquals(List.of(), QueryPlanChecker.planProblems(users.find().sort(new Document("_id", 1)).limit(20)
+                .explain(ExplainVerbosity.QUERY_PLANNER)));
+    }
+}
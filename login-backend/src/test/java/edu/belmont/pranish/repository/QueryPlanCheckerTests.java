@@ -0,0 +1,303 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserUpdate;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that every user repository query has an index to use, without a live
+ * server, that the planned queries match the filters the repository sends to
+ * an in-memory wire-protocol server, and that {@link QueryPlanChecker}
+ * recognises plans that read the whole collection.
+ */
+class QueryPlanCheckerTests {
+
+    @Test
+    void everyRepositoryMethodIsPlanned() {
+        Set<String> planned = Stream.concat(
+                        QueryPlanChecker.plannedQueries().stream().map(QueryPlanChecker.PlannedQuery::method),
+                        QueryPlanChecker.plannedAggregations().stream().map(QueryPlanChecker.PlannedAggregation::method))
+                .collect(Collectors.toSet());
+
+        Set<String> unchecked = Stream.of(UserRepository.class, UserRepositoryCustom.class,
+                        ReactiveUserRepository.class, ReactiveUserRepositoryCustom.class)
+                .flatMap(type -> Stream.of(type.getDeclaredMethods()))
+                .map(Method::getName)
+                .filter(name -> !planned.contains(name) && !QueryPlanChecker.UNPLANNED.containsKey(name))
+                .collect(Collectors.toSet());
+
+        assertEquals(Set.of(), unchecked, "Add these to QueryPlanChecker.plannedQueries() or plannedAggregations()");
+    }
+
+    @Test
+    void everyHintNamesADeclaredIndex() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        Set<String> indexNames = new HashSet<>();
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(UserDocument.class)
+                .forEach(index -> indexNames.add((String) index.getIndexOptions().get("name")));
+
+        Stream.concat(
+                        QueryPlanChecker.plannedQueries().stream().map(planned -> planned.query().getHint()),
+                        QueryPlanChecker.plannedAggregations().stream()
+                                .map(planned -> planned.aggregation().getOptions().getHintObject().orElse(null)))
+                .filter(hint -> hint != null)
+                .forEach(hint -> assertTrue(indexNames.contains(hint), hint + " is not among " + indexNames));
+    }
+
+    @Test
+    void everyPlannedQueryStartsWithAnIndexedField() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(UserDocument.class);
+        QueryMapper queryMapper = new QueryMapper(converter);
+
+        Set<String> indexPrefixes = new HashSet<>(Set.of("_id"));
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexForEntity(entity)
+                .forEach(index -> indexPrefixes.add(index.getIndexKeys().keySet().iterator().next()));
+
+        for (QueryPlanChecker.PlannedQuery planned : QueryPlanChecker.plannedQueries()) {
+            Document filter = queryMapper.getMappedObject(planned.query().getQueryObject(), entity);
+            Document sort = queryMapper.getMappedSort(planned.query().getSortObject(), entity);
+            Set<String> fields = new HashSet<>(filter.keySet());
+            fields.addAll(sort.keySet());
+            assertTrue(fields.stream().anyMatch(indexPrefixes::contains),
+                    planned.method() + " " + filter.toJson() + " has no index among " + indexPrefixes);
+        }
+    }
+
+    @Test
+    void plannedQueriesHaveTheShapeTheRepositorySends() {
+        Map<String, Set<BsonDocument>> sent = new HashMap<>();
+        String[] method = new String[1];
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                sentFilters(event.getCommand()).forEach(filter ->
+                        sent.computeIfAbsent(method[0], name -> new HashSet<>()).add(filter));
+            }
+        };
+        MongoServer server = new MongoServer(new PipelineUpdateBackend());
+        InetSocketAddress address = server.bind();
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort()))
+                .addCommandListener(listener)
+                .build();
+        try (MongoClient client = MongoClients.create(settings)) {
+            MongoTemplate template = new MongoTemplate(client, "query_plan_checker_tests");
+            UserRepository repository = new MongoRepositoryFactory(template).getRepository(UserRepository.class,
+                    RepositoryFragments.just(new UserRepositoryCustomImpl(template, new SecondaryReads(true, 90), new ReplicationFence())));
+            String id = repository.save(new UserDocument("alice", "$2a$04$hash", "USER")).getId();
+            LocalDateTime now = LocalDateTime.now();
+            UserUpdate update = new UserUpdate(id, "ADMIN", false);
+
+            Map<String, Runnable> calls = new LinkedHashMap<>();
+            calls.put("findByUsername", () -> repository.findByUsername("alice"));
+            calls.put("findCredentialsByUsername", () -> repository.findCredentialsByUsername("alice"));
+            calls.put("findTokenRevocationsSince", () -> repository.findTokenRevocationsSince(now));
+            calls.put("findUsersAfter", () -> {
+                repository.findUsersAfter(null, null, false, 21);
+                repository.findUsersAfter(id, "ali", true, 21);
+            });
+            calls.put("countUsers", () -> {
+                repository.countUsers("alice", false);
+                repository.countUsers("a", false);
+            });
+            calls.put("searchUsers", () -> {
+                repository.searchUsers(null, false, PageRequest.of(2, 20));
+                repository.searchUsers("alice", false, PageRequest.of(2, 20));
+                repository.searchUsers("al", true, PageRequest.of(2, 20));
+            });
+            calls.put("updateAccount", () -> repository.updateAccount(new UserUpdate(id, "USER", true), now));
+            calls.put("bulkUpdateAccounts", () -> repository.bulkUpdateAccounts(List.of(update), now));
+            calls.put("bulkUpdateLastLogin", () -> repository.bulkUpdateLastLogin(Map.of(id, now)));
+            calls.put("backfillUsernameSearchKeys", repository::backfillUsernameSearchKeys);
+            calls.put("streamUserSummaries", () -> {
+                try (Stream<?> summaries = repository.streamUserSummaries(100)) {
+                    summaries.count();
+                }
+            });
+            calls.forEach((name, call) -> {
+                method[0] = name;
+                call.run();
+            });
+
+            MongoPersistentEntity<?> entity = template.getConverter().getMappingContext()
+                    .getRequiredPersistentEntity(UserDocument.class);
+            QueryMapper queryMapper = new QueryMapper(template.getConverter());
+            for (QueryPlanChecker.PlannedQuery planned : QueryPlanChecker.plannedQueries()) {
+                // The reactive-only findUserSummaries builds its query with the same factory as streamUserSummaries
+                if (planned.method().equals("findUserSummaries")) {
+                    continue;
+                }
+                BsonDocument filter = queryMapper.getMappedObject(planned.query().getQueryObject(), entity)
+                        .toBsonDocument(BsonDocument.class, template.getDb().getCodecRegistry());
+                assertTrue(sent.getOrDefault(planned.method(), Set.of()).contains(shape(filter)),
+                        planned.method() + " never sends " + shape(filter).toJson() + ", it sent "
+                                + sent.get(planned.method()));
+            }
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void detectsCollectionScansInClassicSlotBasedAndAggregatePlans() {
+        assertEquals(List.of("COLLSCAN"), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'LIMIT', inputStage: {stage: 'COLLSCAN'}}}}")));
+        assertEquals(List.of("COLLSCAN"), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {queryPlan: {stage: 'COLLSCAN'}, slotBasedPlan: {stages: 'scan'}}}}")));
+        assertEquals(List.of("COLLSCAN"), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'OR', inputStages: [{stage: 'IXSCAN'}, {stage: 'COLLSCAN'}]}}}")));
+        assertEquals(List.of("COLLSCAN"), QueryPlanChecker.planProblems(Document.parse(
+                "{stages: [{$cursor: {queryPlanner: {winningPlan: {stage: 'COLLSCAN'}}}}, {$facet: {}}]}")));
+
+        assertEquals(List.of(), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: 'username'}},"
+                        + " rejectedPlans: [{stage: 'COLLSCAN'}]}}")));
+        assertEquals(List.of(), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {queryPlan: {stage: 'IDHACK'}}}}")));
+    }
+
+    @Test
+    void detectsUnlimitedScansOfEveryId() {
+        assertEquals(List.of("IXSCAN of every _id"), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: '_id_',"
+                        + " indexBounds: {_id: ['[MinKey, MaxKey]']}}}}}")));
+        assertEquals(List.of("IXSCAN of every _id"), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {queryPlan: {stage: 'FETCH', inputStage: {stage: 'IXSCAN',"
+                        + " indexName: '_id_', indexBounds: {_id: ['[MaxKey, MinKey]']}}}}}}")));
+
+        // Keyset and offset pages stop after a page, or start after the last _id seen
+        assertEquals(List.of(), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'LIMIT', inputStage: {stage: 'SKIP', inputStage: {stage: 'FETCH',"
+                        + " inputStage: {stage: 'IXSCAN', indexName: '_id_', indexBounds: {_id: ['[MinKey, MaxKey]']}}}}}}}")));
+        assertEquals(List.of(), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: '_id_',"
+                        + " indexBounds: {_id: [\"(ObjectId('65a000000000000000000000'), MaxKey]\"]}}}}}")));
+    }
+
+    @Test
+    void detectsUnlimitedInMemorySorts() {
+        assertEquals(List.of("SORT in memory"), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'SORT', sortPattern: {username: 1},"
+                        + " inputStage: {stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: 'usernameGrams'}}}}}")));
+
+        // A top-k sort keeps only one page in memory
+        assertEquals(List.of(), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'SORT', sortPattern: {_id: 1}, limitAmount: 60,"
+                        + " inputStage: {stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: 'usernameGrams'}}}}}")));
+        assertEquals(List.of(), QueryPlanChecker.planProblems(Document.parse(
+                "{queryPlanner: {winningPlan: {stage: 'LIMIT', inputStage: {stage: 'SORT', sortPattern: {_id: 1},"
+                        + " inputStage: {stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: 'usernameGrams'}}}}}}")));
+    }
+
+    @Test
+    void failModeStopsStartupWhenExplainIsUnavailable() {
+        // The in-memory server does not implement explain
+        MongoServer server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        try (MongoClient client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort())) {
+            MongoTemplate template = new MongoTemplate(client, "query_plan_checker_tests");
+
+            assertThrows(IllegalStateException.class, () -> new QueryPlanChecker(template, "fail").checkAtStartup());
+            assertDoesNotThrow(() -> new QueryPlanChecker(template, "warn").checkAtStartup());
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void unknownModeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new QueryPlanChecker(null, "strict"));
+    }
+
+    // Filters of the reads and writes in a command, keyed by field and operator
+    private static List<BsonDocument> sentFilters(BsonDocument command) {
+        if (command.containsKey("find")) {
+            return List.of(shape(command.getDocument("filter", new BsonDocument())));
+        }
+        if (command.containsKey("findAndModify")) {
+            return List.of(shape(command.getDocument("query", new BsonDocument())));
+        }
+        if (command.containsKey("update")) {
+            return command.getArray("updates").stream()
+                    .map(update -> shape(update.asDocument().getDocument("q")))
+                    .toList();
+        }
+        // countDocuments sends its filter as the first $match stage
+        if (command.containsKey("aggregate")) {
+            return command.getArray("pipeline").stream()
+                    .map(BsonValue::asDocument)
+                    .filter(stage -> stage.containsKey("$match"))
+                    .limit(1)
+                    .map(stage -> shape(stage.getDocument("$match")))
+                    .toList();
+        }
+        return List.of();
+    }
+
+    // Field names and operators of a filter, with every value replaced by its BSON type
+    private static BsonDocument shape(BsonDocument filter) {
+        BsonDocument shape = new BsonDocument();
+        filter.forEach((key, value) -> shape.put(key, shapeOf(value)));
+        return shape;
+    }
+
+    private static BsonValue shapeOf(BsonValue value) {
+        if (value.isDocument()) {
+            return shape(value.asDocument());
+        }
+        if (value.isArray()) {
+            BsonArray shapes = new BsonArray();
+            value.asArray().stream().map(QueryPlanCheckerTests::shapeOf).distinct().forEach(shapes::add);
+            return shapes;
+        }
+        return new BsonString(value.getBsonType().name());
+    }
+}
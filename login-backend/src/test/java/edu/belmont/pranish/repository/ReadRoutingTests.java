@@ -0,0 +1,167 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerConnectionState;
+import com.mongodb.connection.ServerDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.connection.ServerType;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.ServerDescriptionChangedEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.belmont.demo.model.UserSummary;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link SecondaryReads}, the {@link ReplicationFence} and the
+ * {@link ReadRouteMonitor} metrics.
+ */
+class ReadRoutingTests {
+
+    private static final ServerId PRIMARY = new ServerId(new ClusterId(), new ServerAddress("db1", 27017));
+    private static final ServerId SECONDARY = new ServerId(new ClusterId(), new ServerAddress("db2", 27017));
+
+    @Test
+    void routedQueriesAllowSecondariesWithinMaxStaleness() {
+        SecondaryReads secondaryReads = new SecondaryReads(true, 120);
+
+        ReadPreference readPreference = secondaryReads.route(new Query()).getReadPreference();
+        assertEquals(ReadPreference.secondaryPreferred(120, TimeUnit.SECONDS), readPreference);
+        assertEquals(120, secondaryReads.getMaxStalenessSeconds());
+    }
+
+    @Test
+    void disabledRoutingKeepsReadsOnThePrimary() {
+        SecondaryReads secondaryReads = new SecondaryReads(false, 90);
+
+        assertEquals(ReadPreference.primary(), secondaryReads.route(new Query()).getReadPreference());
+        assertEquals(0, secondaryReads.getMaxStalenessSeconds());
+    }
+
+    @Test
+    void maxStalenessBelowMongoMinimumIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SecondaryReads(true, 30));
+    }
+
+    @Test
+    void monitorCountsReadsByRouteAndServer() {
+        ReadRouteMonitor monitor = new ReadRouteMonitor();
+        monitor.serverDescriptionChanged(changed(PRIMARY, ServerType.REPLICA_SET_PRIMARY));
+        monitor.serverDescriptionChanged(changed(SECONDARY, ServerType.REPLICA_SET_SECONDARY));
+
+        monitor.commandStarted(started(PRIMARY, "find", "{find: 'users'}"));
+        monitor.commandStarted(started(SECONDARY, "aggregate",
+                "{aggregate: 'users', $readPreference: {mode: 'secondaryPreferred', maxStalenessSeconds: 90}}"));
+        // With no secondary within maxStaleness, secondaryPreferred falls back to the primary
+        monitor.commandStarted(started(PRIMARY, "count", "{count: 'users', $readPreference: {mode: 'secondaryPreferred'}}"));
+        monitor.commandStarted(started(PRIMARY, "find", "{find: 'users', $readPreference: {mode: 'primaryPreferred'}}"));
+        monitor.commandStarted(started(PRIMARY, "update", "{update: 'users'}"));
+
+        assertEquals(2, monitor.getReadCount("primary", "primary"));
+        assertEquals(1, monitor.getReadCount("secondary", "secondary"));
+        assertEquals(1, monitor.getReadCount("secondary", "primary"));
+        assertEquals(0, monitor.getReadCount("primary", "secondary"));
+    }
+
+    @Test
+    void monitorSeesReadsSentByTheDriver() {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        ReadRouteMonitor monitor = new ReadRouteMonitor();
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort()))
+                .addCommandListener(monitor)
+                .applyToServerSettings(builder -> builder.addServerListener(monitor))
+                .build();
+        try (MongoClient client = MongoClients.create(settings)) {
+            UserRepositoryCustomImpl repository = new UserRepositoryCustomImpl(
+                    new MongoTemplate(client, "read_routing_tests"), new SecondaryReads(true, 90), new ReplicationFence());
+
+            try (Stream<UserSummary> summaries = repository.streamUserSummaries(100)) {
+                assertEquals(0, summaries.count());
+            }
+            repository.findUsersAfter(null, "alice", false, 11);
+            repository.searchUsers("alice", true, PageRequest.of(0, 10));
+            repository.countUsers("alice", false);
+            repository.countUsers(null, false);
+            repository.aggregateUserStats(LocalDateTime.now());
+
+            // The in-memory server is a standalone, but the routing still reaches the wire;
+            // the one primary read is the probe for the replication fence
+            assertEquals(6, monitor.getReadCount("secondary", "standalone"));
+            assertEquals(1, monitor.getReadCount("primary", "standalone"));
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void fencePointIsFetchedOncePerChange() {
+        ReplicationFence fence = new ReplicationFence();
+        Document reply = Document.parse("{ok: 1, $clusterTime: {clusterTime: {$timestamp: {t: 100, i: 1}},"
+                + " signature: {hash: {$binary: {base64: 'AAAAAAAAAAAAAAAAAAAAAAAAAAA=', subType: '00'}}, keyId: 0}}}")
+                .append("operationTime", new BsonTimestamp(100, 1));
+        AtomicInteger probes = new AtomicInteger();
+
+        assertEquals(new BsonTimestamp(100, 1), fence.current(() -> {
+            probes.incrementAndGet();
+            return reply;
+        }).orElseThrow().operationTime());
+        fence.current(() -> {
+            probes.incrementAndGet();
+            return reply;
+        });
+        assertEquals(1, probes.get());
+
+        fence.changed();
+        Document later = new Document(reply).append("operationTime", new BsonTimestamp(105, 2));
+        assertEquals(new BsonTimestamp(105, 2), fence.current(() -> later).orElseThrow().operationTime());
+    }
+
+    @Test
+    void standaloneServersHaveNoFence() {
+        ReplicationFence fence = new ReplicationFence();
+
+        assertTrue(fence.current(() -> new Document("ok", 1)).isEmpty());
+        assertTrue(fence.current(Mono.just(new Document("ok", 1))).block().isEmpty());
+    }
+
+    private static ServerDescriptionChangedEvent changed(ServerId serverId, ServerType type) {
+        ServerDescription description = ServerDescription.builder()
+                .address(serverId.getAddress())
+                .state(ServerConnectionState.CONNECTED)
+                .type(type)
+                .build();
+        return new ServerDescriptionChangedEvent(serverId, description,
+                ServerDescription.builder().address(serverId.getAddress()).state(ServerConnectionState.CONNECTING).build());
+    }
+
+    private static CommandStartedEvent started(ServerId serverId, String commandName, String command) {
+        return new CommandStartedEvent(null, 1, 1, new ConnectionDescription(serverId), "simple_login",
+                commandName, BsonDocument.parse(command));
+    }
+}
@@ -0,0 +1,131 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.belmont.demo.service.RefreshTokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for refresh-token rotation through {@link RefreshTokenRepositoryCustomImpl},
+ * run against an in-memory wire-protocol server.
+ */
+class RefreshTokenRotationTests {
+
+    private static final Duration TTL = Duration.ofDays(14);
+
+    private MongoServer server;
+    private MongoClient client;
+    private MutableClock clock;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        MongoTemplate template = new MongoTemplate(client, "refresh_token_tests");
+        RefreshTokenRepository repository = new MongoRepositoryFactory(template).getRepository(RefreshTokenRepository.class,
+                RepositoryFragments.just(new RefreshTokenRepositoryCustomImpl(template)));
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        refreshTokenService = new RefreshTokenService(repository, TTL, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void rotationReplacesTheToken() {
+        String first = refreshTokenService.issue("alice");
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first).orElseThrow();
+        assertEquals("alice", rotation.username());
+        assertNotEquals(first, rotation.refreshToken());
+        assertTrue(refreshTokenService.rotate(rotation.refreshToken()).isPresent());
+        assertEquals(2, refreshTokenService.getRotatedCount());
+    }
+
+    @Test
+    void reusingAConsumedTokenRevokesTheFamily() {
+        String first = refreshTokenService.issue("alice");
+        String second = refreshTokenService.rotate(first).orElseThrow().refreshToken();
+        String otherSession = refreshTokenService.issue("alice");
+
+        assertTrue(refreshTokenService.rotate(first).isEmpty());
+        assertTrue(refreshTokenService.rotate(second).isEmpty());
+        assertEquals(1, refreshTokenService.getReusedCount());
+        // Only the family the stolen token belonged to is revoked
+        assertTrue(refreshTokenService.rotate(otherSession).isPresent());
+    }
+
+    @Test
+    void expiredAndUnknownTokensAreRejected() {
+        String token = refreshTokenService.issue("alice");
+        clock.advance(TTL.plusSeconds(1));
+
+        assertEquals(Optional.empty(), refreshTokenService.rotate(token));
+        assertEquals(Optional.empty(), refreshTokenService.rotate("not-a-token"));
+        assertEquals(Optional.empty(), refreshTokenService.rotate(null));
+        assertEquals(3, refreshTokenService.getRejectedCount());
+        assertEquals(0, refreshTokenService.getReusedCount());
+    }
+
+    @Test
+    void revokeEndsTheSession() {
+        String first = refreshTokenService.issue("alice");
+        String second = refreshTokenService.rotate(first).orElseThrow().refreshToken();
+
+        refreshTokenService.revoke(first);
+
+        assertTrue(refreshTokenService.rotate(second).isEmpty());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
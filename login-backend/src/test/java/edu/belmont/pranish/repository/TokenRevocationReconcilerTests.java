@@ -0,0 +1,84 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.service.TokenRevocationReconciler;
+import edu.belmont.demo.service.TokenVersionRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that {@link TokenRevocationReconciler} recovers revocations whose
+ * broadcast never arrived, run against an in-memory wire-protocol server.
+ */
+class TokenRevocationReconcilerTests {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate template;
+    private TokenVersionRegistry registry;
+    private TokenRevocationReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        template = new MongoTemplate(client, "token_revocation_tests");
+        UserRepository userRepository = new MongoRepositoryFactory(template).getRepository(UserRepository.class,
+                RepositoryFragments.just(new UserRepositoryCustomImpl(template, new SecondaryReads(true, 90), new ReplicationFence())));
+        registry = new TokenVersionRegistry(900);
+        reconciler = new TokenRevocationReconciler(userRepository, registry, 900, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void revocationMissedByTheBroadcastIsPickedUp() {
+        UserDocument user = template.insert(new UserDocument("teacher", "hash", "USER"));
+        assertEquals(0, reconciler.reconcile());
+
+        // Another instance revokes the user's tokens, but its event never reaches this one
+        template.updateFirst(Query.query(Criteria.where("id").is(user.getId())),
+                new Update().set("tokenVersion", 2).set("tokensRevokedAt", LocalDateTime.now()), UserDocument.class);
+        assertEquals(0, registry.currentVersion("teacher"));
+
+        assertEquals(1, reconciler.reconcile());
+        assertEquals(2, registry.currentVersion("teacher"));
+
+        // Already known, whether from the last pass or a broadcast
+        assertEquals(0, reconciler.reconcile());
+        assertEquals(1, reconciler.getRecoveredCount());
+    }
+
+    @Test
+    void broadcastRevocationIsNotCountedAsRecovered() {
+        UserDocument user = template.insert(new UserDocument("student", "hash", "USER"));
+        template.updateFirst(Query.query(Criteria.where("id").is(user.getId())),
+                new Update().set("tokenVersion", 1).set("tokensRevokedAt", LocalDateTime.now()), UserDocument.class);
+        registry.record("student", 1, Instant.now());
+
+        assertEquals(0, reconciler.reconcile());
+        assertEquals(1, registry.currentVersion("student"));
+    }
+}
@@ -0,0 +1,125 @@
+package edu.belmont.demo.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.belmont.demo.model.ImportRowResult;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.service.TokenVersionRegistry;
+import edu.belmont.demo.service.UserCollectionVersion;
+import edu.belmont.demo.service.UserImportService;
+import edu.belmont.demo.service.UserLookupCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link UserImportService} and the bulk insert behind it,
+ * run against an in-memory wire-protocol server.
+ */
+class UserImportTests {
+
+    private MongoServer server;
+    private MongoClient client;
+    private UserRepository userRepository;
+    private UserImportService importService;
+    private UserCollectionVersion collectionVersion;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        MongoTemplate template = new MongoTemplate(client, "user_import_tests");
+        template.indexOps(UserDocument.class).createIndex(new Index("username", Sort.Direction.ASC).unique());
+        userRepository = new MongoRepositoryFactory(template).getRepository(UserRepository.class,
+                RepositoryFragments.just(new UserRepositoryCustomImpl(template, new SecondaryReads(true, 90), new ReplicationFence())));
+        UserInvalidationBus invalidationBus = new UserInvalidationBus(template, false, 1048576, 1000);
+        collectionVersion = new UserCollectionVersion(invalidationBus, new ReplicationFence(), 60);
+        UserLookupCache userLookupCache = new UserLookupCache(userRepository, invalidationBus,
+                new TokenVersionRegistry(60), collectionVersion, 100, 60);
+        importService = new UserImportService(userRepository, userLookupCache, new ObjectMapper(), 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void importsCsvAndReportsRejectedRows() throws Exception {
+        userRepository.save(new UserDocument("existing", "hash", "USER"));
+        String csv = """
+                username,password,role,isActive
+                alice,"pa,ss",ADMIN,true
+                bob,secret,,false
+                existing,secret,USER,true
+                alice,again,USER,true
+                ,nopass,USER,true
+                carol,secret,TEACHER,true
+                dave,secret,user,
+                """;
+
+        Map<String, Object> summary = importService.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV);
+
+        assertEquals(7, summary.get("total"));
+        assertEquals(3, summary.get("created"));
+        assertEquals(2L, summary.get("duplicates"));
+        assertEquals(2L, summary.get("invalid"));
+        @SuppressWarnings("unchecked")
+        List<ImportRowResult> rejected = (List<ImportRowResult>) summary.get("rejectedRows");
+        assertEquals(List.of(3, 4, 5, 6), rejected.stream().map(ImportRowResult::row).toList());
+
+        UserDocument alice = userRepository.findByUsername("alice").orElseThrow();
+        assertEquals("ADMIN", alice.getRole());
+        assertTrue(BCrypt.checkpw("pa,ss", alice.getPasswordHash()));
+        assertFalse(userRepository.findByUsername("bob").orElseThrow().isActive());
+        assertEquals("USER", userRepository.findByUsername("dave").orElseThrow().getRole());
+    }
+
+    @Test
+    void importsNdjson() throws Exception {
+        String ndjson = """
+                {"username": "alice", "password": "secret"}
+                {"username": "bob", "password": "secret", "role": "ADMIN", "isActive": false}
+                not json
+                """;
+
+        Map<String, Object> summary = importService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.NDJSON);
+
+        assertEquals(2, summary.get("created"));
+        assertEquals(1L, summary.get("invalid"));
+        assertFalse(userRepository.findByUsername("bob").orElseThrow().isActive());
+        // Cached lists and stats must not survive an import
+        assertTrue(collectionVersion.current() > 0);
+    }
+
+    @Test
+    void rejectsCsvWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class, () -> importService.importUsers(
+                new ByteArrayInputStream("name,secret\n".getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV));
+    }
+}
@@ -0,0 +1,80 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.belmont.demo.model.UserInvalidation;
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests for how {@link UserInvalidationBus} publishes events, run against an
+ * in-memory wire-protocol server. That server has no capped collections, so
+ * tailing is not covered here.
+ */
+class UserInvalidationBusTests {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate template;
+    private final List<BsonDocument> inserted = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if (event.getCommandName().equals("insert")) {
+                    event.getCommand().getArray("documents").forEach(document -> inserted.add(document.asDocument()));
+                }
+            }
+        };
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort()))
+                .addCommandListener(listener)
+                .build());
+        template = new MongoTemplate(client, "user_invalidation_bus_tests");
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void eventIdsAreAssignedByTheServer() {
+        UserInvalidationBus bus = new UserInvalidationBus(template, true, 1048576, 1000);
+
+        bus.publish(List.of(UserInvalidation.documentOnly("alice")));
+        bus.publish(List.of(UserInvalidation.documentOnly("bob")));
+
+        // Ids made on the publishing instance would carry its clock into the resume order
+        assertEquals(2, inserted.size());
+        inserted.forEach(event -> assertFalse(event.containsKey("_id")));
+        List<ObjectId> ids = template.getCollection(UserInvalidationBus.COLLECTION).find()
+                .map(event -> event.getObjectId("_id"))
+                .into(new ArrayList<>());
+        assertEquals(2, ids.size());
+        assertEquals(2, bus.getPublishedCount());
+    }
+}
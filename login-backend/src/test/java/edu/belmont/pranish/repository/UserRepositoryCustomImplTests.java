@@ -0,0 +1,219 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import edu.belmont.demo.model.BulkUpdateResult;
+import edu.belmont.demo.model.UserDocument;
+import edu.belmont.demo.model.UserStats;
+import edu.belmont.demo.model.UserSummary;
+import edu.belmont.demo.model.UpdatedAccount;
+import edu.belmont.demo.model.UserUpdate;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the hand-written queries in {@link UserRepositoryCustomImpl},
+ * run against an in-memory wire-protocol server.
+ */
+class UserRepositoryCustomImplTests {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate template;
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new PipelineUpdateBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        template = new MongoTemplate(client, "user_repository_tests");
+        userRepository = new MongoRepositoryFactory(template).getRepository(UserRepository.class,
+                RepositoryFragments.just(new UserRepositoryCustomImpl(template, new SecondaryReads(true, 90), new ReplicationFence())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void aggregateUserStatsCountsEveryFacet() {
+        LocalDateTime now = LocalDateTime.now();
+        save("admin", "ADMIN", true, now.minusHours(1));
+        save("teacher", "USER", true, now.minusDays(2));
+        save("student", "USER", false, null);
+
+        UserStats stats = userRepository.aggregateUserStats(now.minusDays(1));
+
+        assertEquals(new UserStats(3, 2, 1, 2, 1), stats);
+    }
+
+    @Test
+    void aggregateUserStatsOnEmptyCollectionIsZero() {
+        assertEquals(new UserStats(0, 0, 0, 0, 0), userRepository.aggregateUserStats(LocalDateTime.now()));
+    }
+
+    @Test
+    void bulkUpdateLastLoginSetsOnlyTimestamps() {
+        UserDocument user = save("student", "USER", true, null);
+        LocalDateTime loginAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        int matched = userRepository.bulkUpdateLastLogin(Map.of(user.getId(), loginAt));
+
+        UserDocument reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals(1, matched);
+        assertEquals(loginAt, reloaded.getLastLoginAt());
+        assertEquals(user.getPasswordHash(), reloaded.getPasswordHash());
+    }
+
+    @Test
+    void findUsersAfterWalksPagesInIdOrder() {
+        for (int i = 1; i <= 5; i++) {
+            save("student" + i, "USER", true, null);
+        }
+        save("teacher", "USER", true, null);
+
+        List<UserDocument> first = userRepository.findUsersAfter(null, "STUDENT", false, 3);
+        List<UserDocument> second = userRepository.findUsersAfter(first.get(2).getId(), "STUDENT", false, 3);
+
+        assertEquals(List.of("student1", "student2", "student3"), usernames(first));
+        assertEquals(List.of("student4", "student5"), usernames(second));
+        assertEquals(5, userRepository.countUsers("student", false));
+    }
+
+    @Test
+    void searchUsersMatchesSubstringsAndPrefixesIgnoringCase() {
+        save("MathTeacher", "USER", true, null);
+        save("teacher.sub", "USER", true, null);
+        save("student", "USER", true, null);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("username"));
+
+        assertEquals(List.of("MathTeacher", "teacher.sub"),
+                usernames(userRepository.searchUsers("TEACH", false, pageable).getContent()));
+        assertEquals(List.of("teacher.sub"), usernames(userRepository.searchUsers("teach", true, pageable).getContent()));
+        assertEquals(List.of("teacher.sub"), usernames(userRepository.searchUsers("r.s", false, pageable).getContent()));
+        assertEquals(List.of("MathTeacher", "teacher.sub"), usernames(userRepository.searchUsers("ER", false, pageable).getContent()));
+        assertEquals(3, userRepository.searchUsers("t", false, pageable).getTotalElements());
+    }
+
+    @Test
+    void backfillAddsSearchKeysToLegacyDocuments() {
+        template.getCollection("users").insertOne(new Document("username", "LegacyUser").append("role", "USER"));
+
+        assertEquals(1, userRepository.backfillUsernameSearchKeys());
+        assertEquals(0, userRepository.backfillUsernameSearchKeys());
+        assertEquals(List.of("LegacyUser"),
+                usernames(userRepository.searchUsers("acyus", false, PageRequest.of(0, 10)).getContent()));
+    }
+
+    @Test
+    void streamUserSummariesReturnsOnlyUsernameAndRole() {
+        save("admin", "ADMIN", true, null);
+        save("student", null, true, null);
+
+        try (Stream<UserSummary> users = userRepository.streamUserSummaries(1)) {
+            assertEquals(List.of(new UserSummary("admin", "ADMIN"), new UserSummary("student", null)),
+                    users.toList());
+        }
+    }
+
+    @Test
+    void updateAccountRevokesTokensOnlyWhenSomethingChanges() {
+        UserDocument user = save("teacher", "USER", true, null);
+        LocalDateTime first = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        UpdatedAccount promoted = userRepository.updateAccount(new UserUpdate(user.getId(), "ADMIN", null), first);
+        assertTrue(promoted.tokensRevoked());
+        assertEquals("ADMIN", promoted.user().getRole());
+        assertEquals(1, promoted.user().getTokenVersion());
+        assertEquals(first, promoted.user().getTokensRevokedAt());
+
+        // Same millisecond as the revoking update, which a timestamp comparison would mistake for a revocation
+        UpdatedAccount unchanged = userRepository.updateAccount(new UserUpdate(user.getId(), "ADMIN", true), first);
+        assertFalse(unchanged.tokensRevoked());
+        assertEquals(1, unchanged.user().getTokenVersion());
+        assertEquals(first, unchanged.user().getTokensRevokedAt());
+
+        LocalDateTime second = first.plusSeconds(1);
+        UpdatedAccount deactivated = userRepository.updateAccount(new UserUpdate(user.getId(), "ADMIN", false), second);
+        assertTrue(deactivated.tokensRevoked());
+        assertEquals(2, deactivated.user().getTokenVersion());
+        assertEquals(second, deactivated.user().getTokensRevokedAt());
+        assertEquals(second, deactivated.user().getUpdatedAt());
+
+        assertNull(userRepository.updateAccount(new UserUpdate("507f1f77bcf86cd799439011", "USER", null), second));
+    }
+
+    @Test
+    void bulkUpdateAccountsReportsChangedUsers() {
+        UserDocument teacher = save("teacher", "USER", true, null);
+        UserDocument student = save("student", "USER", true, null);
+        UserDocument admin = save("admin", "ADMIN", true, null);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        BulkUpdateResult result = userRepository.bulkUpdateAccounts(List.of(
+                new UserUpdate(teacher.getId(), "ADMIN", null),
+                new UserUpdate(student.getId(), null, false),
+                new UserUpdate(admin.getId(), "ADMIN", true)), now);
+
+        assertEquals(2, result.modified());
+        assertEquals(List.of("student", "teacher"), result.changedUsers().stream()
+                .map(UserDocument::getUsername).sorted().toList());
+        assertEquals(List.of(1, 1), result.changedUsers().stream().map(UserDocument::getTokenVersion).toList());
+        assertEquals(false, userRepository.findById(student.getId()).orElseThrow().isActive());
+        UserDocument unchanged = userRepository.findById(admin.getId()).orElseThrow();
+        assertEquals(0, unchanged.getTokenVersion());
+        assertNull(unchanged.getTokensRevokedAt());
+        assertEquals(now, unchanged.getUpdatedAt());
+    }
+
+    @Test
+    void bulkUpdateAccountsReportsOnlyItsOwnRevocations() {
+        UserDocument teacher = save("teacher", "USER", true, null);
+        UserDocument student = save("student", "USER", true, null);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        // Two bulks in the same millisecond touching the same users
+        userRepository.bulkUpdateAccounts(List.of(new UserUpdate(teacher.getId(), "ADMIN", null)), now);
+        BulkUpdateResult second = userRepository.bulkUpdateAccounts(List.of(
+                new UserUpdate(teacher.getId(), "ADMIN", null),
+                new UserUpdate(student.getId(), "ADMIN", null)), now);
+
+        assertEquals(1, second.modified());
+        assertEquals(List.of("student"), second.changedUsers().stream().map(UserDocument::getUsername).toList());
+    }
+
+    private static List<String> usernames(List<UserDocument> users) {
+        return users.stream().map(UserDocument::getUsername).toList();
+    }
+
+    private UserDocument save(String username, String role, boolean active, LocalDateTime lastLoginAt) {
+        UserDocument user = new UserDocument(username, "$2a$04$hash", role);
+        user.setActive(active);
+        user.setLastLoginAt(lastLoginAt);
+        return userRepository.save(user);
+    }
+}
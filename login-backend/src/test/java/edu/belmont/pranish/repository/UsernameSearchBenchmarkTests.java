@@ -0,0 +1,102 @@
+package edu.belmont.demo.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import edu.belmont.demo.model.UsernameSearchKeys;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the original unanchored case-insensitive regex search with the
+ * indexed prefix/n-gram search at several collection sizes. Needs a real
+ * MongoDB, so it only runs when a URI is given:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=UsernameSearchBenchmarkTests \
+ *     -Dbenchmark.mongo.uri=mongodb://localhost:27017 \
+ *     -Dbenchmark.search.sizes=10000,100000,1000000
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.mongo.uri", matches = ".+")
+class UsernameSearchBenchmarkTests {
+
+    private static final String DATABASE = "username_search_benchmark";
+    private static final List<String> QUERIES = List.of("stu", "dent4", "teacher12", "x9");
+    private static final int RUNS = 20;
+    private static final int PAGE = 10;
+
+    @Test
+    void compareRegexAndIndexedSearch() {
+        String uri = System.getProperty("benchmark.mongo.uri");
+        String sizes = System.getProperty("benchmark.search.sizes", "10000,100000,1000000");
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoTemplate template = new MongoTemplate(client, DATABASE);
+            System.out.printf("%-9s %-10s %-8s %12s %14s%n", "users", "query", "path", "avg ms", "docs examined");
+            for (int size : Arrays.stream(sizes.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()) {
+                seed(template, size);
+                for (String text : QUERIES) {
+                    report(template, size, text, "regex", UserSearchCriteria.legacyContains(text));
+                    report(template, size, text, "indexed", UserSearchCriteria.contains(text));
+                    report(template, size, text, "prefix", UserSearchCriteria.prefix(text));
+                }
+            }
+            template.getDb().drop();
+        }
+    }
+
+    private static void seed(MongoTemplate template, int size) {
+        template.getDb().drop();
+        MongoCollection<Document> users = template.getCollection("users");
+        List<Document> batch = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String username = (i % 3 == 0 ? "Teacher" : "Student") + i;
+            String usernameLower = UsernameSearchKeys.normalize(username);
+            batch.add(new Document("username", username)
+                    .append("usernameLower", usernameLower)
+                    .append("usernameGrams", UsernameSearchKeys.grams(usernameLower))
+                    .append("passwordHash", "$2a$10$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234")
+                    .append("role", "USER")
+                    .append("isActive", true));
+            if (batch.size() == 10_000) {
+                users.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            users.insertMany(batch);
+        }
+        IndexOperations indexes = template.indexOps("users");
+        indexes.createIndex(new Index("username", Sort.Direction.ASC).unique());
+        indexes.createIndex(new Index("usernameLower", Sort.Direction.ASC));
+        indexes.createIndex(new Index("usernameGrams", Sort.Direction.ASC));
+    }
+
+    private static void report(MongoTemplate template, int size, String text, String path, Criteria criteria) {
+        Query query = Query.query(criteria).limit(PAGE);
+        template.find(query, Document.class, "users");
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            template.find(query, Document.class, "users");
+            template.count(Query.query(criteria), "users");
+        }
+        double avgMillis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        Document explain = template.getDb().runCommand(new Document("explain",
+                new Document("count", "users").append("query", query.getQueryObject()))
+                .append("verbosity", "executionStats"));
+        Object docsExamined = explain.get("executionStats", Document.class).get("totalDocsExamined");
+        System.out.printf("%-9d %-10s %-8s %12.2f %14s%n", size, text, path, avgMillis, docsExamined);
+    }
+}
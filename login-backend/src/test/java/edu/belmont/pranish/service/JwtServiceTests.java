@@ -0,0 +1,180 @@
+package edu.belmont.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for token issuing, claims and the verified-token cache in {@link JwtService}.
+ */
+class JwtServiceTests {
+
+    private static final String SECRET = "0123456789abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private final TokenVersionRegistry tokenVersions = new TokenVersionRegistry(60);
+
+    @Test
+    void repeatValidationIsServedFromCache() {
+        JwtService jwtService = new JwtService(SECRET, 60, 100, tokenVersions);
+        String token = jwtService.issueToken("admin", "ADMIN", true, 0);
+
+        assertEquals("admin", jwtService.validateAndGetSubject(token));
+        assertEquals("admin", jwtService.validateAndGetSubject(token));
+
+        assertEquals(1, jwtService.getTokenCacheMisses());
+        assertEquals(1, jwtService.getTokenCacheHits());
+    }
+
+    @Test
+    void claimsCarryRoleAndActiveState() {
+        JwtService jwtService = new JwtService(SECRET, 60, 100, tokenVersions);
+
+        TokenClaims claims = jwtService.validate(jwtService.issueToken("admin", "ADMIN", true, 2));
+
+        assertEquals("ADMIN", claims.role());
+        assertEquals(2, claims.tokenVersion());
+        assertNull(jwtService.validate(jwtService.issueToken("student", "USER", false, 0)));
+    }
+
+    @Test
+    void revokedTokenVersionIsRejectedEvenWhenCached() {
+        JwtService jwtService = new JwtService(SECRET, 60, 100, tokenVersions);
+        String token = jwtService.issueToken("student", "USER", true, 0);
+        assertNotNull(jwtService.validate(token));
+
+        tokenVersions.record("student", 1, Instant.now());
+
+        assertNull(jwtService.validate(token));
+        assertNotNull(jwtService.validate(jwtService.issueToken("student", "ADMIN", true, 1)));
+    }
+
+    @Test
+    void tokenWithoutClaimsVersionIsRejected() {
+        JwtService jwtService = new JwtService(SECRET, 60, 100, tokenVersions);
+        String legacy = Jwts.builder()
+                .setSubject("admin")
+                .setExpiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertNull(jwtService.validate(legacy));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        JwtService jwtService = new JwtService(SECRET, 60, 100, tokenVersions);
+        String token = jwtService.issueToken("admin", "ADMIN", true, 0);
+
+        assertNull(jwtService.validateAndGetSubject(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(jwtService.validateAndGetSubject("not-a-jwt"));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        JwtService jwtService = new JwtService(SECRET, -1, 100, tokenVersions);
+
+        assertNull(jwtService.validateAndGetSubject(jwtService.issueToken("admin", "ADMIN", true, 0)));
+    }
+
+    @Test
+    void cacheNeverReturnsEntryPastExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        Instant now = Instant.now();
+        cache.put("token", claims("admin", now.plusSeconds(5)));
+
+        assertEquals("admin", cache.get("token", now).subject());
+        assertNull(cache.get("token", now.plusSeconds(5)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cacheEvictsLeastRecentlyUsed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        Instant now = Instant.now();
+        Instant exp = now.plusSeconds(60);
+        cache.put("a", claims("a", exp));
+        cache.put("b", claims("b", exp));
+        cache.get("a", now);
+        cache.put("c", claims("c", exp));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", now));
+        assertEquals("a", cache.get("a", now).subject());
+    }
+
+    private static TokenClaims claims(String subject, Instant expiresAt) {
+        return new TokenClaims(subject, "USER", true, 0, expiresAt);
+    }
+
+    @Test
+    void es256TokensCarryKeyIdAndVerifyAcrossRotation() throws Exception {
+        KeyPair previous = ecKeyPair();
+        KeyPair current = ecKeyPair();
+        JwtService before = new JwtService(new SigningKeySet("2025-01", previous.getPrivate(),
+                Map.of("2025-01", previous.getPublic())), 60, 0, tokenVersions);
+        JwtService after = new JwtService(new SigningKeySet("2025-02", current.getPrivate(),
+                Map.of("2025-01", previous.getPublic(), "2025-02", current.getPublic())), 60, 0, tokenVersions);
+
+        String oldToken = before.issueToken("admin", "ADMIN", true, 0);
+        String newToken = after.issueToken("admin", "ADMIN", true, 0);
+
+        assertEquals("2025-02", header(newToken).get(JwsHeader.KEY_ID));
+        assertEquals("ES256", header(newToken).get(JwsHeader.ALGORITHM));
+        assertEquals("admin", after.validateAndGetSubject(oldToken));
+        assertEquals("admin", after.validateAndGetSubject(newToken));
+        // The retired key's service does not know the new key
+        assertNull(before.validateAndGetSubject(newToken));
+    }
+
+    @Test
+    void es256ServiceRejectsHs256Tokens() throws Exception {
+        KeyPair pair = ecKeyPair();
+        JwtService jwtService = new JwtService(new SigningKeySet("k1", pair.getPrivate(),
+                Map.of("k1", pair.getPublic())), 60, 0, tokenVersions);
+
+        assertNull(jwtService.validate(new JwtService(SECRET, 60, 0, tokenVersions).issueToken("admin", "ADMIN", true, 0)));
+    }
+
+    @Test
+    void jwksListsEveryVerificationKey() throws Exception {
+        KeyPair previous = ecKeyPair();
+        KeyPair current = ecKeyPair();
+        SigningKeySet keys = new SigningKeySet("2025-02", current.getPrivate(),
+                Map.of("2025-01", previous.getPublic(), "2025-02", current.getPublic()));
+
+        String jwks = new String(keys.getJwks(), StandardCharsets.UTF_8);
+
+        assertTrue(jwks.contains("\"kid\":\"2025-01\""));
+        assertTrue(jwks.contains("\"kid\":\"2025-02\""));
+        assertTrue(jwks.contains("\"crv\":\"P-256\""));
+        assertEquals(keys.getJwksETag(), new SigningKeySet("2025-01", previous.getPrivate(),
+                Map.of("2025-01", previous.getPublic(), "2025-02", current.getPublic())).getJwksETag());
+    }
+
+    private static KeyPair ecKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static Map<?, ?> header(String token) throws Exception {
+        return new ObjectMapper().readValue(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))), Map.class);
+    }
+}
@@ -0,0 +1,144 @@
+package edu.belmont.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the token buckets and eviction in {@link LoginRateLimiter}.
+ */
+class LoginRateLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void usernameBucketAllowsBurstThenRefills() {
+        // 3 attempts burst, one more every 10 seconds
+        LoginRateLimiter limiter = new LoginRateLimiter(100, 600, 3, 6, 1000, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1", "alice"));
+        }
+        assertEquals(10, limiter.tryAcquire("10.0.0.2", "Alice"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "bob"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "alice"));
+        assertTrue(limiter.tryAcquire("10.0.0.1", "alice") > 0);
+        assertEquals(2, limiter.getRejectedCount(LoginRateLimiter.Limit.USERNAME));
+    }
+
+    @Test
+    void successfulLoginsAreRefunded() {
+        LoginRateLimiter limiter = new LoginRateLimiter(0, 60, 3, 1, 1000, now::get);
+
+        // Failures drain the bucket while the owner keeps logging in
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0, limiter.tryAcquire(null, "alice"));
+            assertEquals(0, limiter.tryAcquire(null, "alice"));
+            limiter.refund("Alice");
+        }
+        assertEquals(0, limiter.tryAcquire(null, "alice"));
+        assertTrue(limiter.tryAcquire(null, "alice") > 0);
+    }
+
+    @Test
+    void refundNeverRaisesTheBurst() {
+        LoginRateLimiter limiter = new LoginRateLimiter(0, 60, 2, 1, 1000, now::get);
+        limiter.tryAcquire(null, "alice");
+        limiter.refund("alice");
+        limiter.refund("alice");
+
+        assertEquals(0, limiter.tryAcquire(null, "alice"));
+        assertEquals(0, limiter.tryAcquire(null, "alice"));
+        assertTrue(limiter.tryAcquire(null, "alice") > 0);
+    }
+
+    @Test
+    void ipBucketRejectsBeforeUsernameIsCharged() {
+        LoginRateLimiter limiter = new LoginRateLimiter(2, 60, 2, 60, 1000, now::get);
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "a"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "b"));
+        assertEquals(1, limiter.tryAcquire("10.0.0.1", "c"));
+
+        // "c" was not charged by the rejected attempt
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", "c"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", "c"));
+        assertEquals(1, limiter.getRejectedCount(LoginRateLimiter.Limit.IP));
+        assertEquals(0, limiter.getRejectedCount(LoginRateLimiter.Limit.USERNAME));
+    }
+
+    @Test
+    void zeroIpCapacityLimitsOnlyUsernames() {
+        LoginRateLimiter limiter = new LoginRateLimiter(0, 60, 2, 60, 1000, now::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1", "user" + i));
+        }
+        assertEquals(0, limiter.getKeyCount(LoginRateLimiter.Limit.IP));
+    }
+
+    @Test
+    void tableStaysBoundedUnderDistinctKeys() {
+        LoginRateLimiter limiter = new LoginRateLimiter(5, 1, 5, 1, 100, now::get);
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("10.0." + (i / 256) + "." + (i % 256), null);
+        }
+
+        assertTrue(limiter.getKeyCount(LoginRateLimiter.Limit.IP) <= 100);
+        assertTrue(limiter.getEvictedCount(LoginRateLimiter.Limit.IP) >= 900);
+    }
+
+    @Test
+    void refilledBucketsAreSweptFirst() {
+        LoginRateLimiter limiter = new LoginRateLimiter(5, 60, 5, 60, 10, now::get);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("idle-" + i, null);
+        }
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("busy", null));
+        }
+
+        limiter.tryAcquire("new", null);
+
+        assertEquals(2, limiter.getKeyCount(LoginRateLimiter.Limit.IP));
+        assertTrue(limiter.tryAcquire("busy", null) > 0);
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedCapacity() throws InterruptedException {
+        LoginRateLimiter limiter = new LoginRateLimiter(1000, 1, 50, 1, 1000, now::get);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (limiter.tryAcquire(null, "target") == 0) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(50, allowed.get());
+        assertEquals(350, limiter.getRejectedCount(LoginRateLimiter.Limit.USERNAME));
+    }
+}
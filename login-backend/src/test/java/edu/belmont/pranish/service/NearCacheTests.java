@@ -0,0 +1,53 @@
+package edu.belmont.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for how {@link NearCache} handles loads that race with invalidations.
+ */
+class NearCacheTests {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-06-01T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void loadRacingAnInvalidationOfItsKeyIsNotCached() {
+        NearCache<String> cache = new NearCache<>(100, Duration.ofMinutes(1), CLOCK);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("alice", key -> {
+            loads.incrementAndGet();
+            cache.invalidate(List.of("alice"));
+            return "stale";
+        });
+        assertEquals("fresh", cache.get("alice", key -> {
+            loads.incrementAndGet();
+            return "fresh";
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadRacingAnInvalidationOfAnotherKeyIsCached() {
+        NearCache<String> cache = new NearCache<>(100, Duration.ofMinutes(1), CLOCK);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            cache.get("alice", key -> {
+                loads.incrementAndGet();
+                cache.invalidate(List.of("bob"));
+                return "alice";
+            });
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,122 @@
+package edu.belmont.demo.service;
+
+import edu.belmont.demo.model.UserInvalidation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the ETags derived from {@link UserCollectionVersion}.
+ */
+class UserCollectionVersionTests {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-06-01T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void eTagIsStableUntilTheCollectionChanges() {
+        UserCollectionVersion version = new UserCollectionVersion(60, CLOCK);
+
+        String eTag = version.eTag("admin/users", 0, 10, null);
+        assertEquals(eTag, version.eTag("admin/users", 0, 10, null));
+        assertTrue(eTag.startsWith("W/\"") && eTag.endsWith("\""));
+
+        version.advance();
+        assertNotEquals(eTag, version.eTag("admin/users", 0, 10, null));
+    }
+
+    @Test
+    void lastLoginChangesDoNotAdvanceTheVersion() {
+        UserCollectionVersion version = new UserCollectionVersion(60, CLOCK);
+        String eTag = version.eTag("admin/stats");
+
+        version.advance(List.of(UserInvalidation.lastLogin("alice"), UserInvalidation.lastLogin("bob")));
+        assertEquals(0, version.current());
+        assertEquals(eTag, version.eTag("admin/stats"));
+
+        version.advance(List.of(UserInvalidation.lastLogin("alice"), UserInvalidation.documentOnly("carol")));
+        assertEquals(1, version.current());
+        version.advance(List.of(UserInvalidation.account("alice", null, null)));
+        assertEquals(2, version.current());
+    }
+
+    @Test
+    void eTagDependsOnResourceAndParameters() {
+        UserCollectionVersion version = new UserCollectionVersion(60, CLOCK);
+
+        String eTag = version.eTag("admin/users", 0, 10, null);
+        assertNotEquals(eTag, version.eTag("admin/users", 1, 10, null));
+        assertNotEquals(eTag, version.eTag("admin/users", 0, 10, "alice"));
+        assertNotEquals(eTag, version.eTag("admin/stats", 0, 10, null));
+    }
+
+    @Test
+    void eTagExpiresWithTheCacheWindow() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-06-01T12:00:00Z"));
+        UserCollectionVersion version = new UserCollectionVersion(60, clock);
+        String eTag = version.eTag("admin/stats");
+
+        clock.advance(Duration.ofSeconds(59));
+        assertEquals(eTag, version.eTag("admin/stats"));
+
+        // A lost broadcast cannot keep a 304 alive past the window
+        clock.advance(Duration.ofSeconds(1));
+        assertNotEquals(eTag, version.eTag("admin/stats"));
+    }
+
+    @Test
+    void eTagDiffersBetweenProcesses() {
+        assertNotEquals(new UserCollectionVersion(60, CLOCK).eTag("admin/stats"),
+                new UserCollectionVersion(60, CLOCK).eTag("admin/stats"));
+    }
+
+    @Test
+    void countsMatchingConditionalRequests() {
+        UserCollectionVersion version = new UserCollectionVersion(60, CLOCK);
+        String eTag = version.eTag("admin/stats");
+
+        assertFalse(version.notModified(null, eTag));
+        assertFalse(version.notModified("\"other\"", eTag));
+        assertTrue(version.notModified("\"other\", " + eTag, eTag));
+        // Weak comparison: a client or proxy may drop the W/ prefix
+        assertTrue(version.notModified(eTag.substring(2), eTag));
+        assertEquals(2, version.getNotModifiedCount());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}